@@ -0,0 +1,94 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Aggregates over the analytics files, per board size
+// Games give the average score and time of games that were played out, the share that were restarted and
+// the penalties per turn. Turns give the average think time before a first flip and time between two flips.
+// Each table is one scan of only the columns it needs
+class AnalyticsReport {
+    // Totals for one board size
+    static final class BoardSize {
+        long games; // Games that were played out, not restarted
+        long restarted;
+        long score;
+        long millis;
+        long turns;
+        long penalties;
+        long turnRows;
+        long thinkMicros;
+        long flipMicros;
+
+        public double averageScore() { return games == 0 ? 0 : (double) score / games; }
+        public double averageSeconds() { return games == 0 ? 0 : millis / 1000.0 / games; }
+        public double restartRate() { return games + restarted == 0 ? 0 : (double) restarted / (games + restarted); }
+        public double penaltyRate() { return turns == 0 ? 0 : (double) penalties / turns; }
+        public double averageThinkMillis() { return turnRows == 0 ? 0 : thinkMicros / 1000.0 / turnRows; }
+        public double averageFlipMillis() { return turnRows == 0 ? 0 : flipMicros / 1000.0 / turnRows; }
+    }
+
+    private final TreeMap<Integer, BoardSize> sizes = new TreeMap<>();
+    private long gameRows;
+    private long turnRows;
+
+    private AnalyticsReport() { }
+
+    public static AnalyticsReport byBoardSize(Path directory) throws IOException {
+        AnalyticsReport report = new AnalyticsReport();
+        GameAnalytics.scan(directory, GameAnalytics.GAMES,
+            new String[] {"pairs", "reason", "score", "millis", "turns", "penalties"}, report::games);
+        GameAnalytics.scan(directory, GameAnalytics.TURNS,
+            new String[] {"pairs", "thinkMicros", "flipMicros"}, report::turns);
+        return report;
+    }
+
+    private void games(int rows, long[][] values) {
+        long[] pairs = values[0];
+        BoardSize size = null;
+        for (int i = 0; i < rows; i++) {
+            if (i == 0 || pairs[i] != pairs[i - 1]) size = size((int) pairs[i]);
+            size.turns += values[4][i];
+            size.penalties += values[5][i];
+            if (values[1][i] == GameAnalytics.RESTARTED) {
+                size.restarted++;
+            } else {
+                size.games++;
+                size.score += values[2][i];
+                size.millis += values[3][i];
+            }
+        }
+        gameRows += rows;
+    }
+
+    private void turns(int rows, long[][] values) {
+        long[] pairs = values[0];
+        BoardSize size = null;
+        for (int i = 0; i < rows; i++) {
+            if (i == 0 || pairs[i] != pairs[i - 1]) size = size((int) pairs[i]);
+            size.turnRows++;
+            size.thinkMicros += values[1][i];
+            size.flipMicros += values[2][i];
+        }
+        turnRows += rows;
+    }
+
+    private BoardSize size(int pairs) { return sizes.computeIfAbsent(pairs, key -> new BoardSize()); }
+
+    public Map<Integer, BoardSize> getSizes() { return sizes; }
+    public long getGameRows() { return gameRows; }
+    public long getTurnRows() { return turnRows; }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder(String.format("%6s %10s %10s %8s %9s %10s %10s %9s%n",
+            "pairs", "games", "avg score", "avg s", "restarts", "penalties", "think ms", "flip ms"));
+        for (Map.Entry<Integer, BoardSize> entry : sizes.entrySet()) {
+            BoardSize size = entry.getValue();
+            text.append(String.format("%6d %10d %10.2f %8.1f %8.1f%% %9.1f%% %10.0f %9.0f%n", entry.getKey(), size.games,
+                size.averageScore(), size.averageSeconds(), 100 * size.restartRate(), 100 * size.penaltyRate(),
+                size.averageThinkMillis(), size.averageFlipMillis()));
+        }
+        return text.toString();
+    }
+}
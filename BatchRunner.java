@@ -0,0 +1,387 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Plays move scripts through the engine without a person, a prompt or a board on the screen
+// A script is one game. It has one line per move, exactly as it would be typed into GameController.play():
+// a tile number, h for a hint, q to quit or r to restart. Anything else counts as invalid input, like it does
+// there. Nobody reads a hint here, so h changes nothing, but a recorded session with hints plays back as it was.
+// A few more lines set the game up, since a recorded game needs its board back to be played again:
+//   # comment
+//   pairs <n>          pairs on the next board that is dealt (6 by default)
+//   seed <n>           seed of the next board that is dealt (0 by default, a restart without one derives it)
+//   advance <seconds>  lets game time pass, so a script can run out the clock
+// Game time stands still otherwise, so a script plays the same way however fast it runs.
+//
+// Parsing and playing overlap: while a worker plays a script, a parser thread reads ahead and hands it the
+// moves as ints, in a few reusable chunks. Several scripts are played at once, one per worker
+class BatchRunner {
+    // Tile numbers are parsed to themselves, everything else to a negative code.
+    // A directive's number follows it, a seed as two ints
+    static final int QUIT = -1;
+    static final int RESTART = -2;
+    static final int INVALID = -3;
+    static final int SEED = -4;
+    static final int PAIRS = -5;
+    static final int ADVANCE = -6;
+    static final int HINT = -7;
+
+    private static final int CHUNK_SIZE = 8192;
+    private static final int CHUNKS_PER_SCRIPT = 4;
+    private static final int READ_SIZE = 64 * 1024;
+    private static final int MAX_LINE = 64; // Longer lines can not be a move, they are just invalid
+    private static final int[] END_OF_SCRIPT = new int[0];
+
+    private final int threads;
+    private final boolean pipelined;
+
+    public BatchRunner(int threads) {
+        this(threads, true);
+    }
+
+    // Without pipelining every script is parsed on the thread that plays it, before it is played
+    public BatchRunner(int threads, boolean pipelined) {
+        if (threads <= 0) throw new IllegalArgumentException("threads must be positive");
+        this.threads = threads;
+        this.pipelined = pipelined;
+    }
+
+    // How one script ended. reason is null when the script ran out before the game was over
+    static final class Result {
+        final Path script;
+        final int pairs;
+        final long seed;
+        final int score;
+        final int matches;
+        final int seconds;
+        final long moves;
+        final long invalid;
+        final MemoryGame.GameOverReason reason;
+        final String error; // Set when the script could not be read
+
+        Result(Path script, int pairs, long seed, int score, int matches, int seconds, long moves, long invalid,
+               MemoryGame.GameOverReason reason, String error) {
+            this.script = script;
+            this.pairs = pairs;
+            this.seed = seed;
+            this.score = score;
+            this.matches = matches;
+            this.seconds = seconds;
+            this.moves = moves;
+            this.invalid = invalid;
+            this.reason = reason;
+            this.error = error;
+        }
+
+        @Override
+        public String toString() {
+            if (error != null) return script + ": " + error;
+            return script + ": score " + score + ", matches " + matches + "/" + pairs + ", " + seconds + " s, "
+                + moves + " moves, " + invalid + " invalid, " + (reason == null ? "UNFINISHED" : reason);
+        }
+    }
+
+    // Plays every script and returns the results in the same order
+    public List<Result> run(List<Path> scripts) {
+        Result[] results = new Result[scripts.size()];
+        AtomicInteger next = new AtomicInteger();
+        ExecutorService parsers = Executors.newFixedThreadPool(threads, daemon("batch-parser"));
+        ExecutorService players = Executors.newFixedThreadPool(threads, daemon("batch-player"));
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                workers.add(players.submit(() -> {
+                    int i;
+                    while ((i = next.getAndIncrement()) < results.length) {
+                        results[i] = play(scripts.get(i), parsers);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> worker : workers) worker.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Batch run was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Batch run failed", e.getCause());
+        } finally {
+            parsers.shutdownNow();
+            players.shutdownNow();
+        }
+        return Arrays.asList(results);
+    }
+
+    private static ThreadFactory daemon(String name) {
+        AtomicInteger count = new AtomicInteger();
+        return task -> {
+            Thread thread = new Thread(task, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private Result play(Path script, ExecutorService parsers) throws InterruptedException {
+        Parser parser = new Parser(script, pipelined);
+        if (pipelined) {
+            parsers.execute(parser);
+        } else {
+            parser.run();
+        }
+        ScriptedGame game = new ScriptedGame();
+        while (true) {
+            int[] chunk = parser.full.take();
+            if (chunk == END_OF_SCRIPT) break;
+            int length = chunk[CHUNK_SIZE];
+            for (int i = 0; i < length && !game.over; i++) {
+                int op = chunk[i];
+                if (op == SEED) {
+                    game.seed((long) chunk[i + 1] << 32 | chunk[i + 2] & 0xffffffffL);
+                    i += 2;
+                } else if (op == PAIRS || op == ADVANCE) {
+                    game.directive(op, chunk[++i]);
+                } else {
+                    game.move(op);
+                }
+            }
+            if (game.over) parser.stopped = true; // Whatever comes after the end of the game is not read
+            if (pipelined) parser.empty.add(chunk);
+        }
+        if (parser.error != null) return new Result(script, 0, 0, 0, 0, 0, 0, 0, null, parser.error);
+        return game.result(script);
+    }
+
+    // Reads a script and turns its lines into ints
+    private static final class Parser implements Runnable {
+        private final Path script;
+        private final boolean pipelined;
+        // Filled chunks go to the player, the player hands them back empty to be filled again, so a parser
+        // is never more than a few chunks ahead. The last slot of every chunk holds its length
+        final BlockingQueue<int[]> full = new LinkedBlockingQueue<>();
+        final BlockingQueue<int[]> empty = new ArrayBlockingQueue<>(CHUNKS_PER_SCRIPT);
+        volatile boolean stopped;
+        volatile String error;
+        private final byte[] line = new byte[MAX_LINE];
+        private int lineLength;
+        private boolean lineTooLong;
+        private int[] chunk;
+        private int length;
+        private long number; // Set by parseNumber()
+
+        Parser(Path script, boolean pipelined) {
+            this.script = script;
+            this.pipelined = pipelined;
+            for (int i = 0; i < CHUNKS_PER_SCRIPT; i++) empty.add(new int[CHUNK_SIZE + 1]);
+        }
+
+        @Override
+        public void run() {
+            try (FileChannel channel = FileChannel.open(script, StandardOpenOption.READ)) {
+                chunk = empty.take();
+                ByteBuffer in = ByteBuffer.allocate(READ_SIZE);
+                byte[] bytes = in.array();
+                int read;
+                while (!stopped && (read = channel.read(in)) >= 0) {
+                    for (int i = 0; i < read; i++) {
+                        byte b = bytes[i];
+                        if (b == '\n') {
+                            endLine();
+                        } else if (lineLength < MAX_LINE) {
+                            line[lineLength++] = b;
+                        } else {
+                            lineTooLong = true;
+                        }
+                    }
+                    in.clear();
+                }
+                if (lineLength > 0 || lineTooLong) endLine(); // The last line may not end with a newline
+                if (length > 0 && !stopped) flush();
+            } catch (IOException e) {
+                error = "Could not read the script: " + e.getMessage();
+            } catch (InterruptedException e) {
+                stopped = true; // The run is being shut down
+            } finally {
+                full.add(END_OF_SCRIPT);
+            }
+        }
+
+        private void flush() throws InterruptedException {
+            chunk[CHUNK_SIZE] = length;
+            full.add(chunk);
+            length = 0;
+            // Parsing the whole script before playing it holds all of it at once, nobody hands chunks back
+            chunk = pipelined ? empty.take() : new int[CHUNK_SIZE + 1];
+        }
+
+        // Turns the line into ints, the same way play() reads what was typed
+        private void endLine() throws InterruptedException {
+            int end = lineLength;
+            if (end > 0 && line[end - 1] == '\r') end--; // Like BufferedReader.readLine(), Windows line ends are fine
+            boolean tooLong = lineTooLong;
+            lineLength = 0;
+            lineTooLong = false;
+            if (length + 3 > CHUNK_SIZE) flush(); // A directive is never split between two chunks
+
+            if (end > 0 && line[0] == '#') return;
+            if (tooLong) {
+                chunk[length++] = INVALID;
+            } else if (end == 1 && (line[0] | 0x20) == 'q') {
+                chunk[length++] = QUIT;
+            } else if (end == 1 && (line[0] | 0x20) == 'r') {
+                chunk[length++] = RESTART;
+            } else if (end == 1 && (line[0] | 0x20) == 'h') {
+                chunk[length++] = HINT;
+            } else if (startsWith("seed ", end)) {
+                if (parseNumber(5, end, Long.MIN_VALUE, Long.MAX_VALUE)) {
+                    chunk[length++] = SEED;
+                    chunk[length++] = (int) (number >>> 32);
+                    chunk[length++] = (int) number;
+                } else {
+                    chunk[length++] = INVALID;
+                }
+            } else if (startsWith("pairs ", end)) {
+                directive(PAIRS, parseNumber(6, end, 1, Integer.MAX_VALUE));
+            } else if (startsWith("advance ", end)) {
+                directive(ADVANCE, parseNumber(8, end, 0, Integer.MAX_VALUE));
+            } else {
+                // Integer.parseInt() takes the number, anything out of range is an invalid tile
+                chunk[length++] = parseNumber(0, end, Integer.MIN_VALUE, Integer.MAX_VALUE) && number >= 0
+                    ? (int) number : INVALID;
+            }
+        }
+
+        private void directive(int op, boolean valid) {
+            if (valid) {
+                chunk[length++] = op;
+                chunk[length++] = (int) number;
+            } else {
+                chunk[length++] = INVALID;
+            }
+        }
+
+        private boolean startsWith(String prefix, int end) {
+            if (end <= prefix.length()) return false;
+            for (int i = 0; i < prefix.length(); i++) {
+                if (line[i] != prefix.charAt(i)) return false;
+            }
+            return true;
+        }
+
+        // Parses line[from, to) like Long.parseLong() and checks it is in [min, max]. Sets number
+        private boolean parseNumber(int from, int to, long min, long max) {
+            if (from == to) return false;
+            boolean negative = line[from] == '-';
+            if (negative || line[from] == '+') {
+                from++;
+                if (from == to) return false;
+            }
+            // Summed as a negative number, which also holds Long.MIN_VALUE
+            long value = 0;
+            for (int i = from; i < to; i++) {
+                int digit = line[i] - '0';
+                if (digit < 0 || digit > 9) return false;
+                if (value < (Long.MIN_VALUE + digit) / 10) return false;
+                value = value * 10 - digit;
+            }
+            if (!negative) {
+                if (value == Long.MIN_VALUE) return false;
+                value = -value;
+            }
+            if (value < min || value > max) return false;
+            number = value;
+            return true;
+        }
+    }
+
+    // The game a script plays. Its clock only moves on advance lines
+    private static final class ScriptedGame {
+        final ManualClock clock = new ManualClock();
+        final TimerWheel wheel = TimerWheel.manual(clock, 1, TimeUnit.SECONDS, 1);
+        final MemoryGame game = new MemoryGame(wheel);
+        int pairs = 6;
+        long seed;
+        boolean seedSet; // A seed line came after the last deal
+        boolean dealt;
+        boolean over;
+        long moves;
+        long invalid;
+        MemoryGame.GameOverReason reason;
+
+        void seed(long value) {
+            seed = value;
+            seedSet = true;
+        }
+
+        void directive(int op, int value) {
+            if (op == PAIRS) {
+                pairs = value;
+            } else {
+                deal();
+                clock.advance(value, TimeUnit.SECONDS);
+                wheel.advance();
+                if (game.timeIsFinished()) end(MemoryGame.GameOverReason.TIME_UP);
+            }
+        }
+
+        // The game is dealt on its first move, so the lines before it can set it up
+        private void deal() {
+            if (dealt) return;
+            dealt = true;
+            seedSet = false;
+            game.initializeTiles(pairs, seed);
+            game.startTimer();
+        }
+
+        // One line of play(). The clock does not move between lines, so time only runs out on advance lines
+        void move(int op) {
+            deal();
+            moves++;
+            if (op == QUIT) {
+                end(MemoryGame.GameOverReason.ENDED);
+            } else if (op == RESTART) {
+                seed = seedSet ? seed : new SplittableRandom(seed).nextLong();
+                seedSet = false;
+                game.restartGame(pairs, seed);
+                wheel.advance();
+            } else if (op == HINT) {
+                return; // Only shows something, the game stays as it is
+            } else if (op == INVALID || op >= game.getBoard().size()) {
+                invalid++;
+            } else {
+                MemoryGame.FlipResult result = game.flip(op);
+                if (result == MemoryGame.FlipResult.MISS || result == MemoryGame.FlipResult.PENALTY) {
+                    game.resetFlippedTiles();
+                } else if (result == MemoryGame.FlipResult.MATCH && game.allMatched()) {
+                    end(MemoryGame.GameOverReason.ALL_MATCHED);
+                }
+            }
+        }
+
+        private void end(MemoryGame.GameOverReason why) {
+            game.endGame();
+            reason = why;
+            over = true;
+        }
+
+        Result result(Path script) {
+            deal();
+            return new Result(script, game.getBoard().pairs(), game.getSeed(), game.getScore(), game.getMatches(),
+                game.getSeconds(), moves, invalid, reason, null);
+        }
+    }
+}
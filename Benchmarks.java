@@ -0,0 +1,434 @@
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// Benchmarks for the hot paths of the engine and both views
+// There is no build file for JMH, so this is a small harness in the same spirit: warmup
+// iterations, then measured iterations, reported as average time per operation.
+// The results are written in JMH's JSON format so runs can be compared between versions.
+// Like JMH's gc profiler, every benchmark also reports the bytes it allocated per operation
+// (gc.alloc.rate.norm). Benchmarks that are meant to be allocation free fail the run if they allocate.
+// Footprint entries build one board and report the bytes it takes per tile instead of a time.
+//
+// Run with:
+//   javac -d out *.java
+//   java -Djava.awt.headless=true -cp out Benchmarks [results.json] [benchmark name filter]
+public class Benchmarks {
+    private static final int WARMUP_ITERATIONS = 5;
+    private static final int MEASUREMENT_ITERATIONS = 10;
+    private static final long ITERATION_NANOS = TimeUnit.MILLISECONDS.toNanos(200);
+    // Counting allocations this way can be off by a few bytes per iteration, far less than one byte per op
+    private static final double ALLOCATION_FREE_BYTES = 0.01;
+    private static final com.sun.management.ThreadMXBean THREADS =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    // Results are written here so the JIT can not remove the benchmarked code
+    static volatile long sink;
+    static volatile Object retained;
+
+    private final List<String> results = new ArrayList<>();
+    private final List<String> failures = new ArrayList<>();
+    private final String filter;
+
+    private Benchmarks(String filter) {
+        this.filter = filter;
+    }
+
+    // One benchmark operation, set up for one board size
+    interface Operation {
+        void run();
+    }
+
+    interface Setup {
+        Operation create(int pairs);
+    }
+
+    // Builds one board of the given size for a footprint measurement
+    interface Footprint {
+        Object build(int pairs);
+    }
+
+    // A tile as it was stored before the Board: one object per tile in an ArrayList
+    private static final class ObjectTile {
+        final char symbol;
+        boolean flipped;
+        boolean seen;
+        boolean matched;
+
+        ObjectTile(char symbol) {
+            this.symbol = symbol;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path resultFile = Paths.get(args.length > 0 ? args[0] : "benchmark-results.json");
+        Benchmarks benchmarks = new Benchmarks(args.length > 1 ? args[1] : "");
+
+        // Bytes a board takes per tile: the Board's arrays and bitsets against one object per tile in a list
+        benchmarks.footprint("boardBytes", new int[] {6, 5_000, 500_000, 5_000_000}, pairs -> {
+            int[] symbols = BoardGenerator.ordered(pairs);
+            return new Board(symbols);
+        });
+
+        benchmarks.footprint("tileObjectBytes", new int[] {6, 5_000, 500_000, 5_000_000}, pairs -> {
+            List<ObjectTile> tiles = new ArrayList<>(pairs * 2);
+            for (int i = 0; i < pairs * 2; i++) tiles.add(new ObjectTile((char) (i >> 1)));
+            return tiles;
+        });
+
+        benchmarks.run("initializeTiles", new int[] {6, 500, 50_000, 500_000}, pairs -> {
+            MemoryGame game = newGame();
+            long[] seed = {0};
+            return () -> {
+                game.initializeTiles(pairs, seed[0]++);
+                sink += game.getBoard().symbolAt(0);
+            };
+        });
+
+        // One missed turn through flip(), with no listeners and no countdown running
+        benchmarks.run("turnCycle", new int[] {6, 500, 50_000, 500_000}, pairs -> {
+            MemoryGame game = newGame();
+            game.initializeTiles(pairs, 1);
+            int[] turns = missingTurns(game.getBoard());
+            int[] next = {0};
+            return () -> {
+                int turn = next[0];
+                next[0] = turn + 2 == turns.length ? 0 : turn + 2;
+                sink += game.flip(turns[turn]).ordinal();
+                sink += game.flip(turns[turn + 1]).ordinal();
+                game.resetFlippedTiles();
+            };
+        });
+
+        // Checking a flipped tile for a match on boards of 12, 10k and 1M tiles: through the partner index,
+        // and by scanning the whole board for the other face up tile with its symbol, as it was done before
+        benchmarks.run("matchByIndex", new int[] {6, 5_000, 500_000}, pairs -> {
+            MemoryGame game = halfFlippedGame(pairs);
+            Board board = game.getBoard();
+            int[] next = {0};
+            return () -> {
+                int position = next[0];
+                next[0] = position + 1 == board.size() ? 0 : position + 1;
+                if (board.isFlipped(position) && board.isFlipped(board.partnerOf(position))) sink++;
+            };
+        });
+
+        benchmarks.run("matchByScan", new int[] {6, 5_000, 500_000}, pairs -> {
+            MemoryGame game = halfFlippedGame(pairs);
+            Board board = game.getBoard();
+            int[] next = {0};
+            return () -> {
+                int position = next[0];
+                next[0] = position + 1 == board.size() ? 0 : position + 1;
+                if (board.isFlipped(position) && scanForMatch(board, position)) sink++;
+            };
+        });
+
+        // The turn path as the controllers use it: flip() scores the second tile, a miss is flipped back.
+        // It must not allocate once it is warmed up
+        benchmarks.runAllocationFree("flipCycle", new int[] {6, 500, 50_000}, pairs -> {
+            MemoryGame game = newGame();
+            game.initializeTiles(pairs, 1);
+            game.addGameListener(new GameListener() { });
+            game.startTimer();
+            int[] turns = missingTurns(game.getBoard());
+            int[] next = {0};
+            return () -> {
+                int turn = next[0];
+                next[0] = turn + 2 == turns.length ? 0 : turn + 2;
+                sink += game.flip(turns[turn]).ordinal();
+                sink += game.flip(turns[turn + 1]).ordinal();
+                game.resetFlippedTiles();
+            };
+        });
+
+        // The same turns with a spectator feed following the game. Publishing the changes must not allocate either
+        benchmarks.runAllocationFree("flipCycleWatched", new int[] {6, 500, 50_000}, pairs -> {
+            MemoryGame game = newGame();
+            game.initializeTiles(pairs, 1);
+            game.startTimer();
+            SpectatorFeed.attach(game);
+            int[] turns = missingTurns(game.getBoard());
+            int[] next = {0};
+            return () -> {
+                int turn = next[0];
+                next[0] = turn + 2 == turns.length ? 0 : turn + 2;
+                sink += game.flip(turns[turn]).ordinal();
+                sink += game.flip(turns[turn + 1]).ordinal();
+                game.resetFlippedTiles();
+            };
+        });
+
+        // The same turns recorded for analytics. Batches are recycled by the writer, so recording must not allocate
+        benchmarks.runAllocationFree("flipCycleRecorded", new int[] {6, 500, 50_000}, pairs -> {
+            MemoryGame game = newGame();
+            game.initializeTiles(pairs, 1);
+            game.startTimer();
+            try {
+                analytics(Files.createTempDirectory("analytics")).attach(game);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            int[] turns = missingTurns(game.getBoard());
+            int[] next = {0};
+            return () -> {
+                int turn = next[0];
+                next[0] = turn + 2 == turns.length ? 0 : turn + 2;
+                sink += game.flip(turns[turn]).ordinal();
+                sink += game.flip(turns[turn + 1]).ordinal();
+                game.resetFlippedTiles();
+            };
+        });
+
+        benchmarks.runAllocationFree("displayBoard", new int[] {6, 500, 5_000}, pairs -> {
+            MemoryGame game = halfFlippedGame(pairs);
+            GameOutput output = new GameOutput(new PrintStream(OutputStream.nullOutputStream()));
+            return () -> output.displayBoard(game.getBoard());
+        });
+
+        // An ANSI frame after one tile turned over: only that cell is redrawn, but every cell is compared
+        benchmarks.runAllocationFree("displayChanges", new int[] {6, 500, 50_000}, pairs -> {
+            MemoryGame game = halfFlippedGame(pairs);
+            Board board = game.getBoard();
+            GameOutput output = new GameOutput(new PrintStream(OutputStream.nullOutputStream()), true);
+            output.displayBoard(board);
+            int position = board.isMatched(0) ? board.partnerOf(board.size() - 1) : 0;
+            return () -> {
+                board.setFlipped(position, !board.isFlipped(position));
+                output.displayBoard(board);
+            };
+        });
+
+        // Refreshing the board repaints it, so this paints one window-sized view of it into an image
+        benchmarks.run("refreshBoard", new int[] {6, 500, 5_000, 50_000}, pairs -> {
+            MemoryGame game = halfFlippedGame(pairs);
+            GameController controller = new GameController(game, new BufferedReader(new InputStreamReader(System.in)));
+            BoardPanel board = new BoardPanel(game, new GuiController(game, controller));
+            board.setSize(board.getPreferredSize());
+            BufferedImage image = new BufferedImage(800, 400, BufferedImage.TYPE_INT_RGB);
+            return () -> {
+                board.refresh();
+                Graphics2D g = image.createGraphics();
+                g.setClip(0, 0, image.getWidth(), image.getHeight());
+                board.paint(g);
+                g.dispose();
+            };
+        });
+
+        benchmarks.write(resultFile);
+        if (!benchmarks.failures.isEmpty()) {
+            System.out.println("Allocation free benchmarks that allocated: " + benchmarks.failures);
+            System.exit(1);
+        }
+    }
+
+    // Analytics for a benchmark, closed and deleted when the run ends
+    private static GameAnalytics analytics(Path directory) throws IOException {
+        GameAnalytics analytics = GameAnalytics.open(directory);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            analytics.close();
+            try (Stream<Path> files = Files.list(directory)) {
+                for (Path file : (Iterable<Path>) files::iterator) Files.delete(file);
+                Files.delete(directory);
+            } catch (IOException e) {
+                System.out.println("Could not delete " + directory + ": " + e.getMessage());
+            }
+        }));
+        return analytics;
+    }
+
+    private static MemoryGame newGame() {
+        return new MemoryGame(TimerWheel.manual(new ManualClock(), 1, TimeUnit.SECONDS, 1));
+    }
+
+    // A game with every other pair matched, so views draw both face up and face down cards
+    private static MemoryGame halfFlippedGame(int pairs) {
+        MemoryGame game = newGame();
+        game.initializeTiles(pairs, 1);
+        Board board = game.getBoard();
+        for (int i = 0; i < board.size(); i++) {
+            if ((board.symbolAt(i) & 1) == 0) {
+                board.setFlipped(i, true);
+                board.setMatched(i, true);
+            }
+        }
+        return game;
+    }
+
+    // The match check before the board kept a partner index: count the face up tiles with the same symbol
+    private static boolean scanForMatch(Board board, int position) {
+        int symbol = board.symbolAt(position);
+        int count = 0;
+        for (int i = 0; i < board.size(); i++) {
+            if (board.isFlipped(i) && board.symbolAt(i) == symbol) count++;
+        }
+        return count == 2;
+    }
+
+    // Pairs of positions that never match, so the turn cycle can repeat forever
+    private static int[] missingTurns(Board board) {
+        int count = Math.min(board.size() - 1, 4096);
+        int[] turns = new int[count * 2];
+        for (int i = 0; i < count; i++) {
+            int second = board.partnerOf(i) == i + 1 ? (i + 2) % board.size() : i + 1;
+            turns[2 * i] = i;
+            turns[2 * i + 1] = second;
+        }
+        return turns;
+    }
+
+    // Bytes allocated while building a board, per tile. Everything built is kept, so this is what the board holds
+    private void footprint(String name, int[] sizes, Footprint footprint) {
+        if (!name.contains(filter)) return;
+        for (int pairs : sizes) {
+            for (int i = 0; i < WARMUP_ITERATIONS; i++) retained = footprint.build(pairs);
+            retained = null;
+            double[] bytes = new double[MEASUREMENT_ITERATIONS];
+            for (int i = 0; i < MEASUREMENT_ITERATIONS; i++) {
+                long before = THREADS.getCurrentThreadAllocatedBytes();
+                retained = footprint.build(pairs);
+                bytes[i] = (double) (THREADS.getCurrentThreadAllocatedBytes() - before) / (pairs * 2);
+                retained = null;
+            }
+            double mean = mean(bytes);
+            System.out.printf(Locale.ROOT, "%-16s pairs=%-8d %14.2f B/tile%n", name, pairs, mean);
+            results.add(String.format(Locale.ROOT,
+                "    {\n"
+                + "        \"benchmark\" : \"Benchmarks.%s\",\n"
+                + "        \"mode\" : \"ss\",\n"
+                + "        \"measurementIterations\" : %d,\n"
+                + "        \"params\" : {\n"
+                + "            \"pairs\" : \"%d\"\n"
+                + "        },\n"
+                + "        \"primaryMetric\" : {\n"
+                + "            \"score\" : %.3f,\n"
+                + "            \"scoreError\" : %.3f,\n"
+                + "            \"scoreUnit\" : \"B/tile\",\n"
+                + "            \"rawData\" : [\n"
+                + "                [ %s ]\n"
+                + "            ]\n"
+                + "        }\n"
+                + "    }",
+                name, MEASUREMENT_ITERATIONS, pairs, mean, error(bytes, mean), rawData(bytes)));
+        }
+    }
+
+    private void run(String name, int[] sizes, Setup setup) {
+        run(name, sizes, setup, false);
+    }
+
+    private void runAllocationFree(String name, int[] sizes, Setup setup) {
+        run(name, sizes, setup, true);
+    }
+
+    private void run(String name, int[] sizes, Setup setup, boolean allocationFree) {
+        if (!name.contains(filter)) return;
+        for (int pairs : sizes) {
+            Operation operation = setup.create(pairs);
+            double[] allocations = new double[MEASUREMENT_ITERATIONS];
+            for (int i = 0; i < WARMUP_ITERATIONS; i++) iteration(operation, allocations, 0);
+            double[] scores = new double[MEASUREMENT_ITERATIONS];
+            for (int i = 0; i < MEASUREMENT_ITERATIONS; i++) scores[i] = iteration(operation, allocations, i);
+            record(name, pairs, scores, allocations);
+            if (allocationFree && mean(allocations) > ALLOCATION_FREE_BYTES) failures.add(name + " pairs=" + pairs);
+        }
+    }
+
+    // Runs the operation for about one iteration time and returns nanoseconds per operation.
+    // The bytes allocated per operation go into allocations[index]
+    private static double iteration(Operation operation, double[] allocations, int index) {
+        long ops = 0;
+        long allocatedBefore = THREADS.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            operation.run();
+            ops++;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < ITERATION_NANOS);
+        allocations[index] = (double) (THREADS.getCurrentThreadAllocatedBytes() - allocatedBefore) / ops;
+        return (double) elapsed / ops;
+    }
+
+    private static double mean(double[] values) {
+        double mean = 0;
+        for (double value : values) mean += value;
+        return mean / values.length;
+    }
+
+    // Half width of the 95% confidence interval, roughly, like JMH's score error
+    private static double error(double[] values, double mean) {
+        double variance = 0;
+        for (double value : values) variance += (value - mean) * (value - mean);
+        return values.length > 1 ? 2 * Math.sqrt(variance / (values.length - 1)) / Math.sqrt(values.length) : 0;
+    }
+
+    private static String rawData(double[] values) {
+        StringBuilder raw = new StringBuilder();
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) raw.append(", ");
+            raw.append(String.format(Locale.ROOT, "%.3f", values[i]));
+        }
+        return raw.toString();
+    }
+
+    private void record(String name, int pairs, double[] scores, double[] allocations) {
+        double mean = mean(scores);
+        double error = error(scores, mean);
+        double allocated = mean(allocations);
+        System.out.printf(Locale.ROOT, "%-16s pairs=%-8d %14.1f ns/op  +- %.1f  %12.1f B/op%n",
+            name, pairs, mean, error, allocated);
+
+        results.add(String.format(Locale.ROOT,
+            "    {\n"
+            + "        \"benchmark\" : \"Benchmarks.%s\",\n"
+            + "        \"mode\" : \"avgt\",\n"
+            + "        \"warmupIterations\" : %d,\n"
+            + "        \"measurementIterations\" : %d,\n"
+            + "        \"params\" : {\n"
+            + "            \"pairs\" : \"%d\"\n"
+            + "        },\n"
+            + "        \"primaryMetric\" : {\n"
+            + "            \"score\" : %.3f,\n"
+            + "            \"scoreError\" : %.3f,\n"
+            + "            \"scoreUnit\" : \"ns/op\",\n"
+            + "            \"rawData\" : [\n"
+            + "                [ %s ]\n"
+            + "            ]\n"
+            + "        },\n"
+            + "        \"secondaryMetrics\" : {\n"
+            + "            \"\u00b7gc.alloc.rate.norm\" : {\n"
+            + "                \"score\" : %.3f,\n"
+            + "                \"scoreError\" : %.3f,\n"
+            + "                \"scoreUnit\" : \"B/op\",\n"
+            + "                \"rawData\" : [\n"
+            + "                    [ %s ]\n"
+            + "                ]\n"
+            + "            }\n"
+            + "        }\n"
+            + "    }",
+            name, WARMUP_ITERATIONS, MEASUREMENT_ITERATIONS, pairs, mean, error, rawData(scores),
+            allocated, error(allocations, allocated), rawData(allocations)));
+    }
+
+    private void write(Path file) throws IOException {
+        String json = "[\n" + String.join(",\n", results) + "\n]\n";
+        Files.write(file, json.getBytes(StandardCharsets.UTF_8));
+        System.out.println("Results written to " + file);
+    }
+}
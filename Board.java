@@ -0,0 +1,108 @@
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.util.Arrays;
+
+// Compact board storage, laid out as a struct of arrays
+// Symbols are int ids in one array and the flipped, seen and matched flags are bitsets,
+// so a tile costs about 4 bytes plus 3 bits instead of a whole Tile object
+class Board {
+    private final int[] symbols;
+    private final long[] flipped;
+    private final long[] seen;
+    private final long[] matched;
+    // Board positions of each symbol, two per symbol: symbolPositions[2 * symbol] and the one after it
+    private final int[] symbolPositions;
+
+    // Takes over an already dealt layout, two tiles of every symbol id from 0 to pairs - 1
+    // Boards are normally made by BoardGenerator
+    public Board(int[] symbols) {
+        if ((symbols.length & 1) != 0) throw new IllegalArgumentException("A board needs an even number of tiles");
+        this.symbols = symbols;
+        int words = (symbols.length + 63) >>> 6;
+        flipped = new long[words];
+        seen = new long[words];
+        matched = new long[words];
+        symbolPositions = new int[symbols.length];
+        indexSymbols();
+    }
+
+    // Also checks the layout, so a board read from a corrupt snapshot fails here: every symbol id must be
+    // on the board and must come exactly twice
+    private void indexSymbols() {
+        Arrays.fill(symbolPositions, -1);
+        for (int i = 0; i < symbols.length; i++) {
+            int symbol = symbols[i];
+            if (symbol < 0 || symbol >= symbols.length / 2) {
+                throw new IllegalArgumentException("Symbol " + symbol + " at tile " + i + " is off the board");
+            }
+            int slot = symbol * 2;
+            if (symbolPositions[slot] != -1) slot++;
+            if (symbolPositions[slot] != -1) throw new IllegalArgumentException("Symbol " + symbol + " comes more than twice");
+            symbolPositions[slot] = i;
+        }
+    }
+
+    public int size() { return symbols.length; }
+    public int pairs() { return symbols.length / 2; }
+    public int symbolAt(int position) { return symbols[position]; }
+
+    // Gets the position of the other tile with the same symbol
+    public int partnerOf(int position) {
+        int slot = symbols[position] * 2;
+        return symbolPositions[slot] == position ? symbolPositions[slot + 1] : symbolPositions[slot];
+    }
+
+    public boolean isFlipped(int position) { return get(flipped, position); }
+    public boolean isSeen(int position) { return get(seen, position); }
+    public boolean isMatched(int position) { return get(matched, position); }
+    public void setFlipped(int position, boolean value) { set(flipped, position, value); }
+    public void setSeen(int position, boolean value) { set(seen, position, value); }
+    public void setMatched(int position, boolean value) { set(matched, position, value); }
+
+    // Bytes taken by write(): the symbols, then the flipped, seen and matched bitsets
+    public int byteSize() { return symbols.length * 4 + flipped.length * 8 * 3; }
+
+    // Bulk copies the symbols and flags into a buffer, starting at the given offset
+    public void write(ByteBuffer buffer, int offset) {
+        ByteBuffer out = buffer.duplicate().order(buffer.order());
+        out.position(offset);
+        out.asIntBuffer().put(symbols);
+        out.position(offset + symbols.length * 4);
+        LongBuffer bits = out.asLongBuffer();
+        bits.put(flipped);
+        bits.put(seen);
+        bits.put(matched);
+    }
+
+    // Reads a board that write() put in the buffer, with bulk copies
+    public static Board read(ByteBuffer buffer, int offset, int size) {
+        ByteBuffer in = buffer.duplicate().order(buffer.order());
+        in.position(offset);
+        int[] symbols = new int[size];
+        in.asIntBuffer().get(symbols);
+        Board board = new Board(symbols);
+        in.position(offset + size * 4);
+        LongBuffer bits = in.asLongBuffer();
+        bits.get(board.flipped);
+        bits.get(board.seen);
+        bits.get(board.matched);
+        return board;
+    }
+
+    // Text shown for a symbol id: 'A' to 'Z', then the id itself
+    public static String label(int symbol) {
+        return symbol < 26 ? String.valueOf((char) ('A' + symbol)) : Integer.toString(symbol);
+    }
+
+    private static boolean get(long[] bits, int position) {
+        return (bits[position >>> 6] & (1L << position)) != 0;
+    }
+
+    private static void set(long[] bits, int position, boolean value) {
+        if (value) {
+            bits[position >>> 6] |= 1L << position;
+        } else {
+            bits[position >>> 6] &= ~(1L << position);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+// Deals boards from an explicit seed
+// The same pairs and seed always give the same layout, so games can be replayed and
+// tournaments can be played on identical boards
+class BoardGenerator {
+    // Boards with at least this many tiles are shuffled in parallel
+    public static final int PARALLEL_THRESHOLD = 1 << 20;
+    private static final int CHUNK = 1 << 16;
+
+    // Deals a shuffled board. The mode is picked from the board size, so the layout only depends on pairs and seed
+    public static Board generate(int pairs, long seed) {
+        int[] symbols = ordered(pairs);
+        if (symbols.length >= PARALLEL_THRESHOLD) {
+            parallelShuffle(symbols, seed);
+        } else {
+            shuffle(symbols, seed);
+        }
+        return new Board(symbols);
+    }
+
+    // Two tiles of every symbol id, in order
+    public static int[] ordered(int pairs) {
+        if (pairs < 0 || pairs > Integer.MAX_VALUE / 2 - 1) throw new IllegalArgumentException("Invalid number of pairs: " + pairs);
+        int[] symbols = new int[pairs * 2];
+        for (int i = 0; i < symbols.length; i++) symbols[i] = i >> 1;
+        return symbols;
+    }
+
+    // Fisher-Yates shuffle on the primitive array
+    public static void shuffle(int[] a, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int i = a.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = a[i];
+            a[i] = a[j];
+            a[j] = tmp;
+        }
+    }
+
+    // Shuffles by giving every position a random sort key and sorting the keys on all cores
+    // Each chunk of keys gets its own generator split off the seed in order, so the result
+    // does not depend on how the chunks are scheduled
+    public static void parallelShuffle(int[] a, long seed) {
+        int n = a.length;
+        if (n < 2) return;
+        int indexBits = 32 - Integer.numberOfLeadingZeros(n - 1);
+        long indexMask = (1L << indexBits) - 1;
+        int chunks = (n + CHUNK - 1) / CHUNK;
+        SplittableRandom root = new SplittableRandom(seed);
+        SplittableRandom[] randoms = new SplittableRandom[chunks];
+        for (int c = 0; c < chunks; c++) randoms[c] = root.split();
+
+        long[] keys = new long[n];
+        IntStream.range(0, chunks).parallel().forEach(c -> {
+            SplittableRandom random = randoms[c];
+            int end = Math.min(n, (c + 1) * CHUNK);
+            for (int i = c * CHUNK; i < end; i++) {
+                // random high bits, position in the low bits so the keys are all different
+                keys[i] = (random.nextLong() & ~indexMask) | i;
+            }
+        });
+        Arrays.parallelSort(keys);
+
+        int[] source = a.clone();
+        IntStream.range(0, chunks).parallel().forEach(c -> {
+            int end = Math.min(n, (c + 1) * CHUNK);
+            for (int i = c * CHUNK; i < end; i++) a[i] = source[(int) (keys[i] & indexMask)];
+        });
+    }
+}
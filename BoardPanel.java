@@ -0,0 +1,182 @@
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+
+// The cards in the GUI, painted by one component instead of one JButton per tile
+// Clicks are hit-tested to a tile index, a changed tile only repaints its own rectangle, and
+// painting only covers the tiles inside the visible part of the scroll pane, so big boards
+// stay fast and need no objects per tile
+// It can also be painted without a window (the benchmarks use it headless)
+@SuppressWarnings("serial") // The panel is never serialized
+class BoardPanel extends JComponent implements Scrollable {
+    private static final int GAP = 10;
+    private static final int MIN_CELL_WIDTH = 60;
+    private static final int MIN_CELL_HEIGHT = 40;
+    private static final Color BACKGROUND = new Color(238, 238, 238);
+    private static final Color FACE_DOWN = new Color(70, 110, 180);
+    private static final Color FACE_UP = Color.WHITE;
+    private static final Color MATCHED = new Color(205, 232, 205);
+    private static final Color DISABLED = new Color(160, 160, 160);
+
+    private final MemoryGame memory;
+    private boolean boardEnabled = true;
+
+    public BoardPanel(MemoryGame memory, GuiController controller) {
+        this.memory = memory;
+        setOpaque(true);
+        setFont(new Font(Font.SANS_SERIF, Font.BOLD, 16));
+        addMouseListener(new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent e) {
+                int index = tileAt(e.getX(), e.getY());
+                // matched tiles act like the disabled buttons they used to be
+                if (index >= 0 && boardEnabled && !memory.getBoard().isMatched(index)) {
+                    controller.tileTurn(index);
+                }
+            }
+        });
+    }
+
+    // Repaints the whole board, for example after a new board is dealt
+    public void refresh() {
+        revalidate();
+        repaint();
+    }
+
+    // Repaints the rectangle of a single tile
+    public void refreshTile(int index) {
+        int columns = columns();
+        repaint(GAP + index % columns * (cellWidth() + GAP), GAP + index / columns * (cellHeight() + GAP),
+            cellWidth(), cellHeight());
+    }
+
+    public void setBoardEnabled(boolean enabled) {
+        boardEnabled = enabled;
+        repaint();
+    }
+
+    // Gets the tile under a point, or -1 for a gap or empty space
+    public int tileAt(int x, int y) {
+        int strideX = cellWidth() + GAP;
+        int strideY = cellHeight() + GAP;
+        if (x < GAP || y < GAP) return -1;
+        int column = (x - GAP) / strideX;
+        int row = (y - GAP) / strideY;
+        if ((x - GAP) % strideX >= cellWidth() || (y - GAP) % strideY >= cellHeight()) return -1;
+        if (column >= columns()) return -1;
+        int index = row * columns() + column;
+        return index < memory.getBoard().size() ? index : -1;
+    }
+
+    public Rectangle cellBounds(int index) {
+        int column = index % columns();
+        int row = index / columns();
+        return new Rectangle(GAP + column * (cellWidth() + GAP), GAP + row * (cellHeight() + GAP), cellWidth(), cellHeight());
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        long started = GameMetrics.start();
+        Rectangle clip = g.getClipBounds();
+        if (clip == null) clip = new Rectangle(0, 0, getWidth(), getHeight());
+        g.setColor(BACKGROUND);
+        g.fillRect(clip.x, clip.y, clip.width, clip.height);
+
+        Board board = memory.getBoard();
+        int columns = columns();
+        int strideX = cellWidth() + GAP;
+        int strideY = cellHeight() + GAP;
+        int firstColumn = Math.max(0, (clip.x - GAP) / strideX);
+        int lastColumn = Math.min(columns - 1, (clip.x + clip.width) / strideX);
+        int firstRow = Math.max(0, (clip.y - GAP) / strideY);
+        int lastRow = Math.min(rows() - 1, (clip.y + clip.height) / strideY);
+
+        ((Graphics2D) g).setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        FontMetrics metrics = g.getFontMetrics();
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int column = firstColumn; column <= lastColumn; column++) {
+                int index = row * columns + column;
+                if (index >= board.size()) break;
+                paintTile(g, metrics, board, index, GAP + column * strideX, GAP + row * strideY);
+            }
+        }
+        if (GameMetrics.ENABLED) GameMetrics.GUI_RENDER.record(System.nanoTime() - started);
+    }
+
+    private void paintTile(Graphics g, FontMetrics metrics, Board board, int index, int x, int y) {
+        String text;
+        Color textColor;
+        if (board.isMatched(index)) {
+            g.setColor(MATCHED);
+            text = Board.label(board.symbolAt(index));
+            textColor = Color.GRAY;
+        } else if (board.isFlipped(index)) {
+            g.setColor(FACE_UP);
+            text = Board.label(board.symbolAt(index));
+            textColor = Color.BLACK;
+        } else {
+            g.setColor(boardEnabled ? FACE_DOWN : DISABLED);
+            text = "?";
+            textColor = Color.WHITE;
+        }
+        int width = cellWidth();
+        int height = cellHeight();
+        g.fillRoundRect(x, y, width, height, 12, 12);
+        g.setColor(Color.DARK_GRAY);
+        g.drawRoundRect(x, y, width - 1, height - 1, 12, 12);
+        g.setColor(textColor);
+        g.drawString(text, x + (width - metrics.stringWidth(text)) / 2,
+            y + (height - metrics.getHeight()) / 2 + metrics.getAscent());
+    }
+
+    // Small boards keep the old 6 columns, big ones are laid out roughly square
+    private int columns() {
+        return Math.max(6, (int) Math.ceil(Math.sqrt(memory.getBoard().size())));
+    }
+
+    private int rows() {
+        return (memory.getBoard().size() + columns() - 1) / columns();
+    }
+
+    // Cells grow to fill the window when the board is small, like the old GridLayout did
+    private int cellWidth() {
+        return Math.max(MIN_CELL_WIDTH, (getWidth() - GAP) / columns() - GAP);
+    }
+
+    private int cellHeight() {
+        return Math.max(MIN_CELL_HEIGHT, (getHeight() - GAP) / Math.max(rows(), 1) - GAP);
+    }
+
+    @Override
+    public Dimension getPreferredSize() {
+        return new Dimension(GAP + columns() * (MIN_CELL_WIDTH + GAP), GAP + rows() * (MIN_CELL_HEIGHT + GAP));
+    }
+
+    @Override
+    public Dimension getPreferredScrollableViewportSize() {
+        Dimension preferred = getPreferredSize();
+        return new Dimension(Math.min(preferred.width, 800), Math.min(preferred.height, 400));
+    }
+
+    @Override
+    public int getScrollableUnitIncrement(Rectangle visible, int orientation, int direction) {
+        return orientation == SwingConstants.VERTICAL ? cellHeight() + GAP : cellWidth() + GAP;
+    }
+
+    @Override
+    public int getScrollableBlockIncrement(Rectangle visible, int orientation, int direction) {
+        return orientation == SwingConstants.VERTICAL ? visible.height : visible.width;
+    }
+
+    // Stretch to the viewport when the board is smaller than it
+    @Override
+    public boolean getScrollableTracksViewportWidth() {
+        return getParent() instanceof JViewport && getParent().getWidth() > getPreferredSize().width;
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportHeight() {
+        return getParent() instanceof JViewport && getParent().getHeight() > getPreferredSize().height;
+    }
+}
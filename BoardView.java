@@ -0,0 +1,39 @@
+// One version of a game's board as spectators see it. It never changes, so it can be shared freely
+class BoardView {
+    private final long version;
+    private final int[] cells;
+    private final int score;
+
+    BoardView(long version, int[] cells, int score) {
+        this.version = version;
+        this.cells = cells;
+        this.score = score;
+    }
+
+    // The next version, with the changes from SpectatorFeed.changesSince() applied to a copy
+    public BoardView apply(long[] changes, int count) {
+        int[] next = cells.clone();
+        int nextScore = score;
+        for (int i = 0; i < count; i++) {
+            if (SpectatorFeed.isScoreChange(changes[i])) {
+                nextScore = SpectatorFeed.changedValue(changes[i]);
+            } else {
+                next[SpectatorFeed.changedPosition(changes[i])] = SpectatorFeed.changedValue(changes[i]);
+            }
+        }
+        return new BoardView(version + count, next, nextScore);
+    }
+
+    public long getVersion() { return version; }
+
+    public int getScore() { return score; }
+
+    public int size() { return cells.length; }
+
+    public boolean isFaceUp(int position) { return cells[position] != 0; }
+
+    public boolean isMatched(int position) { return cells[position] < 0; }
+
+    // The symbol of a face up tile, or -1 for a face down one
+    public int symbolAt(int position) { return Math.abs(cells[position]) - 1; }
+}
@@ -0,0 +1,107 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+// A bot player for the simulator
+// It remembers seen cards per symbol, and every card it sees is forgotten right away with
+// probability forgetRate. A rate of 0 is a perfect memory and a rate of 1 plays at random
+class Bot {
+    private final SplittableRandom random;
+    private final double forgetRate;
+    // Positions that are not matched and that the bot does not remember, as a swap-remove set
+    private int[] unknown;
+    private int[] unknownSlot;
+    private int unknownCount;
+    // Remembered positions of each symbol, -1 when not remembered
+    private int[] firstSeen;
+    private int[] secondSeen;
+    // Symbols whose two positions are both remembered, checked again when popped
+    private int[] knownPairs;
+    private int knownPairCount;
+    private int pendingSecond = -1;
+    private int lastSymbol;
+
+    Bot(SplittableRandom random, double forgetRate) {
+        this.random = random;
+        this.forgetRate = forgetRate;
+    }
+
+    // Gets ready for a new board
+    public void start(int tiles) {
+        unknown = new int[tiles];
+        unknownSlot = new int[tiles];
+        for (int i = 0; i < tiles; i++) {
+            unknown[i] = i;
+            unknownSlot[i] = i;
+        }
+        unknownCount = tiles;
+        firstSeen = new int[tiles / 2];
+        secondSeen = new int[tiles / 2];
+        Arrays.fill(firstSeen, -1);
+        Arrays.fill(secondSeen, -1);
+        knownPairs = new int[tiles / 2];
+        knownPairCount = 0;
+        pendingSecond = -1;
+    }
+
+    // Picks the first tile of a turn. A remembered pair is played first
+    public int firstFlip() {
+        while (knownPairCount > 0) {
+            int symbol = knownPairs[--knownPairCount];
+            if (firstSeen[symbol] != -1 && secondSeen[symbol] != -1) {
+                pendingSecond = secondSeen[symbol];
+                return firstSeen[symbol];
+            }
+        }
+        return randomUnknown(-1);
+    }
+
+    // Picks the second tile of a turn, the partner of the first one if it is remembered
+    public int secondFlip(int first) {
+        if (pendingSecond != -1) {
+            int second = pendingSecond;
+            pendingSecond = -1;
+            return second;
+        }
+        if (firstSeen[lastSymbol] != -1 && firstSeen[lastSymbol] != first) return firstSeen[lastSymbol];
+        if (secondSeen[lastSymbol] != -1 && secondSeen[lastSymbol] != first) return secondSeen[lastSymbol];
+        return randomUnknown(first);
+    }
+
+    // Called with every card the bot turns over
+    public void revealed(int position, int symbol) {
+        lastSymbol = symbol;
+        if (firstSeen[symbol] == position || secondSeen[symbol] == position) return;
+        if (forgetRate > 0 && random.nextDouble() < forgetRate) return;
+        removeUnknown(position);
+        if (firstSeen[symbol] == -1) {
+            firstSeen[symbol] = position;
+        } else {
+            secondSeen[symbol] = position;
+            knownPairs[knownPairCount++] = symbol;
+        }
+    }
+
+    // Called when a pair is found so the bot stops picking it
+    public void matched(int first, int second, int symbol) {
+        firstSeen[symbol] = -1;
+        secondSeen[symbol] = -1;
+        removeUnknown(first);
+        removeUnknown(second);
+    }
+
+    private int randomUnknown(int exclude) {
+        while (true) {
+            int position = unknown[random.nextInt(unknownCount)];
+            if (position != exclude) return position;
+        }
+    }
+
+    private void removeUnknown(int position) {
+        int slot = unknownSlot[position];
+        if (slot < 0) return;
+        int last = unknown[--unknownCount];
+        unknown[slot] = last;
+        unknownSlot[last] = slot;
+        unknownSlot[position] = -1;
+    }
+}
@@ -0,0 +1,28 @@
+import java.util.SplittableRandom;
+
+// Makes bot players for the simulator. Every game gets its own bot
+interface BotStrategy {
+    String name();
+
+    Bot newBot(SplittableRandom random);
+
+    // Flips unknown tiles at random and never remembers anything
+    static BotStrategy random() { return forgetful("random", 1.0); }
+
+    // Remembers every card it has seen
+    static BotStrategy perfectMemory() { return forgetful("perfect-memory", 0.0); }
+
+    // Forgets each card it sees with the given probability
+    static BotStrategy forgetful(double forgetRate) { return forgetful("forgetful-" + forgetRate, forgetRate); }
+
+    private static BotStrategy forgetful(String name, double forgetRate) {
+        if (forgetRate < 0 || forgetRate > 1) throw new IllegalArgumentException("forgetRate must be between 0 and 1");
+        return new BotStrategy() {
+            @Override
+            public String name() { return name; }
+
+            @Override
+            public Bot newBot(SplittableRandom random) { return new Bot(random, forgetRate); }
+        };
+    }
+}
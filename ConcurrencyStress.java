@@ -0,0 +1,254 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Stress test for a game played from many threads at once
+// Player threads flip random tiles and flip their misses back. A GUI style thread flips back whatever is up,
+// another restarts the game now and then, and a deadline thread moves the game's clock on, so the countdown
+// runs out in the middle of turns. A listener checks the game after every change, while the change still holds
+// the game's lock: the face up count, the flips left, the matched tiles, the matches and the score must all
+// agree, and no tile may turn up once the time is up. At the end every MATCH and PENALTY a flip returned must
+// have been scored exactly once. Exits with status 1 if a check fails.
+//
+// Run with:
+//   javac -d out *.java
+//   java -cp out ConcurrencyStress [seconds] [player threads] [pairs]
+public class ConcurrencyStress {
+    private final List<String> failures = new ArrayList<>();
+    private final MemoryGame game;
+    private final ManualClock clock = new ManualClock();
+    private final TimerWheel wheel = TimerWheel.manual(clock, 1, TimeUnit.SECONDS, 1);
+    private final int pairs;
+    private final AtomicBoolean running = new AtomicBoolean(true);
+    private final AtomicInteger restarts = new AtomicInteger();
+    private final AtomicInteger gameOvers = new AtomicInteger();
+    private final AtomicInteger timeUps = new AtomicInteger();
+
+    // Tallied by the listener, always under the game's lock
+    private int mirroredMatches;
+    private int mirroredScore;
+    private boolean dealt;
+    private long matchEvents;
+    private long penaltyEvents;
+    private long flipEvents;
+
+    // What the flips returned, summed over the player threads when they finish
+    private long flips;
+    private long matches;
+    private long penalties;
+    private long rejected;
+
+    public static void main(String[] args) throws InterruptedException {
+        int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        int players = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int pairs = args.length > 2 ? Integer.parseInt(args[2]) : 50;
+        ConcurrencyStress stress = new ConcurrencyStress(pairs);
+        stress.run(seconds, players);
+        if (!stress.failures.isEmpty()) {
+            System.out.println("Failed: " + stress.failures.subList(0, Math.min(20, stress.failures.size())));
+            System.exit(1);
+        }
+        System.out.println("All concurrency checks passed");
+    }
+
+    private ConcurrencyStress(int pairs) {
+        this.pairs = pairs;
+        game = new MemoryGame(wheel);
+        game.addGameListener(new Checker());
+        game.restartGame(pairs, 0);
+    }
+
+    private synchronized void fail(String what) {
+        failures.add(what);
+    }
+
+    private void run(int seconds, int players) throws InterruptedException {
+        List<Thread> threads = new ArrayList<>();
+        List<Player> playing = new ArrayList<>();
+        for (int i = 0; i < players; i++) {
+            Player player = new Player();
+            playing.add(player);
+            threads.add(new Thread(player, "player-" + i));
+        }
+        threads.add(new Thread(this::flipBack, "gui"));
+        threads.add(new Thread(this::restart, "restart"));
+        threads.add(new Thread(this::deadline, "deadline"));
+        for (Thread thread : threads) thread.start();
+        Thread.sleep(TimeUnit.SECONDS.toMillis(seconds));
+        running.set(false);
+        for (Thread thread : threads) thread.join();
+
+        synchronized (game) {
+            for (Player player : playing) {
+                flips += player.flips;
+                matches += player.matches;
+                penalties += player.penalties;
+                rejected += player.rejected;
+            }
+            check(matches == matchEvents, "flips returned " + matches + " matches, " + matchEvents + " were scored");
+            check(penalties == penaltyEvents,
+                "flips returned " + penalties + " penalties, " + penaltyEvents + " were scored");
+            check(flips - rejected == flipEvents,
+                (flips - rejected) + " flips were taken, " + flipEvents + " tiles turned up");
+            checkGame("end");
+        }
+        check(gameOvers.get() <= restarts.get() + 1,
+            gameOvers.get() + " games ended, only " + (restarts.get() + 1) + " were started");
+        System.out.printf("%d flips (%d rejected), %d matches, %d penalties, %d restarts, %d games over (%d time up)%n",
+            flips, rejected, matches, penalties, restarts.get(), gameOvers.get(), timeUps.get());
+        // Only the countdown ends a game here. On a small board it may find every match before it runs out
+        check(gameOvers.get() > 0, "the countdown never ran out during the run");
+    }
+
+    private void check(boolean ok, String what) {
+        if (!ok) fail(what);
+    }
+
+    // The model's state must add up. Only called while holding the game's lock
+    private void checkGame(String when) {
+        Board board = game.getBoard();
+        int faceUp = game.getFaceUpCount();
+        int up = 0;
+        int matched = 0;
+        for (int i = 0; i < board.size(); i++) {
+            if (board.isMatched(i)) {
+                matched++;
+            } else if (board.isFlipped(i)) {
+                up++;
+            }
+        }
+        check(faceUp <= 2, when + ": " + faceUp + " tiles up in one turn");
+        check(up == faceUp, when + ": " + up + " unmatched tiles up, the turn has " + faceUp);
+        check(game.getFlips() == 2 - faceUp, when + ": " + game.getFlips() + " flips left with " + faceUp + " up");
+        check(matched == 2 * game.getMatches(), when + ": " + matched + " matched tiles for " + game.getMatches() + " matches");
+        check(game.getMatches() == mirroredMatches, when + ": " + game.getMatches() + " matches, " + mirroredMatches + " made");
+        check(game.getScore() == mirroredScore, when + ": score " + game.getScore() + ", events add up to " + mirroredScore);
+        check(game.getSeconds() <= game.getGameDuration(), when + ": " + game.getSeconds() + " seconds played");
+    }
+
+    // Every event but gameOver is fired while the game's lock is held, so the checks see one consistent game
+    private final class Checker implements GameListener {
+        @Override
+        public void tileFlipped(int position, boolean faceUp) {
+            if (!faceUp) return;
+            flipEvents++;
+            // The deadline thread moves the clock under the game's lock, so a flip judged after it sees the time up
+            check(!game.timeIsFinished(), "tile " + position + " turned up after the time was up");
+            check(game.getFaceUpCount() <= 2, "tile " + position + " turned up as the third tile of a turn");
+        }
+
+        @Override
+        public void matchMade(int first, int second) {
+            matchEvents++;
+            mirroredMatches++;
+            Board board = game.getBoard();
+            check(board.partnerOf(first) == second, "tiles " + first + " and " + second + " matched but are no pair");
+            check(board.isMatched(first) && board.isMatched(second), "tiles " + first + " and " + second + " not kept up");
+            checkGame("match");
+        }
+
+        @Override
+        public void scoreChanged(int score) {
+            if (dealt) {
+                check(score == 0, "a new game started on " + score + " points");
+                dealt = false;
+            } else if (score == mirroredScore - 2) {
+                penaltyEvents++;
+            } else if (score != mirroredScore + 10) {
+                fail("score went from " + mirroredScore + " to " + score);
+            }
+            boolean matching = score == mirroredScore + 10; // the board is checked by matchMade once the pair is kept up
+            mirroredScore = score;
+            if (!matching) checkGame("score");
+        }
+
+        @Override
+        public void boardDealt() {
+            mirroredMatches = 0;
+            dealt = true;
+        }
+
+        @Override
+        public void gameOver(MemoryGame.GameOverReason reason) {
+            gameOvers.incrementAndGet();
+            if (reason == MemoryGame.GameOverReason.TIME_UP) timeUps.incrementAndGet();
+        }
+    }
+
+    // Flips random tiles and flips its own misses back straight away
+    private final class Player implements Runnable {
+        long flips;
+        long matches;
+        long penalties;
+        long rejected;
+
+        @Override
+        public void run() {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            while (running.get()) {
+                MemoryGame.FlipResult result = game.flip(random.nextInt(2 * pairs));
+                flips++;
+                switch (result) {
+                    case REJECTED:
+                        rejected++;
+                        break;
+                    case MATCH:
+                        matches++;
+                        break;
+                    case PENALTY:
+                        penalties++;
+                        game.resetFlippedTiles();
+                        break;
+                    case MISS:
+                        game.resetFlippedTiles();
+                        break;
+                    default:
+                        break;
+                }
+                Thread.yield(); // lets the other threads in on a machine with few cores
+            }
+        }
+    }
+
+    // Like the GUI's flip back timer, it turns the tiles down whenever a turn has two up
+    private void flipBack() {
+        while (running.get()) {
+            if (game.getFaceUpCount() == 2) game.resetFlippedTiles();
+            Thread.yield();
+        }
+    }
+
+    private void restart() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long seed = 1;
+        while (running.get()) {
+            pause(random.nextInt(50, 200)); // long enough for some games to run out of time first
+            game.restartGame(pairs, seed++);
+            restarts.incrementAndGet();
+        }
+    }
+
+    // Moves the clock on up to two virtual seconds every millisecond, so a game lasts about as long as the
+    // restarts are apart. The clock only moves under the game's lock
+    private void deadline() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (running.get()) {
+            synchronized (game) {
+                clock.advance(random.nextInt(1, 2000), TimeUnit.MILLISECONDS);
+            }
+            wheel.advance();
+            pause(1);
+        }
+    }
+
+    private static void pause(int millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
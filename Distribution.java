@@ -0,0 +1,55 @@
+import java.util.Map;
+import java.util.TreeMap;
+
+// Streaming summary of a set of values, with bucketed counts for percentiles
+class Distribution {
+    private final long bucketWidth;
+    private final TreeMap<Long, Long> buckets = new TreeMap<>();
+    private long count;
+    private long sum;
+    private long min = Long.MAX_VALUE;
+    private long max = Long.MIN_VALUE;
+
+    public Distribution(long bucketWidth) {
+        this.bucketWidth = bucketWidth;
+    }
+
+    public void record(long value) {
+        count++;
+        sum += value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+        buckets.merge(Math.floorDiv(value, bucketWidth), 1L, Long::sum);
+    }
+
+    public void merge(Distribution other) {
+        count += other.count;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        other.buckets.forEach((bucket, n) -> buckets.merge(bucket, n, Long::sum));
+    }
+
+    public long getCount() { return count; }
+    public long getMin() { return min; }
+    public long getMax() { return max; }
+    public double getMean() { return count == 0 ? 0 : (double) sum / count; }
+
+    // Lower edge of the bucket holding the given percentile
+    public long percentile(double percent) {
+        long rank = (long) Math.ceil(count * percent / 100.0);
+        long seen = 0;
+        for (Map.Entry<Long, Long> entry : buckets.entrySet()) {
+            seen += entry.getValue();
+            if (seen >= rank) return entry.getKey() * bucketWidth;
+        }
+        return max;
+    }
+
+    @Override
+    public String toString() {
+        if (count == 0) return "no values";
+        return String.format("mean %.2f, min %d, p50 %d, p90 %d, p99 %d, max %d",
+            getMean(), min, percentile(50), percentile(90), percentile(99), max);
+    }
+}
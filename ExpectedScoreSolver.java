@@ -0,0 +1,104 @@
+import java.util.Arrays;
+
+// Expected result of the rest of a game under optimal play, for comparing players against it
+// A player with a perfect memory only needs to know how many pairs are left and of how many of them one card
+// has been seen, so that is the whole state. The solver works out the best move in every state once and
+// keeps it: the most points, and with equal points the fewest turns.
+// Its answer: flipping a seen card without making a match is never worth it, so optimal play never loses
+// points and always scores 10 per pair. What tells players apart is how many turns it takes
+class ExpectedScoreSolver {
+    // The expected points still to be won and turns still to be played
+    static final class Expectation {
+        final double score;
+        final double turns;
+
+        Expectation(double score, double turns) {
+            this.score = score;
+            this.turns = turns;
+        }
+
+        public double getScore() { return score; }
+        public double getTurns() { return turns; }
+
+        @Override
+        public String toString() { return String.format("%.2f points in %.2f turns", score, turns); }
+    }
+
+    // Row n holds the states with n pairs left, indexed by the number of pairs with one card seen
+    private double[][] scores = new double[][] {{0}};
+    private double[][] turns = new double[][] {{0}};
+
+    // The rest of a game with pairsLeft unmatched pairs, knownSingles of them with one card seen
+    // and none with both seen, at the start of a turn
+    public synchronized Expectation solve(int pairsLeft, int knownSingles) {
+        if (knownSingles < 0 || knownSingles > pairsLeft) throw new IllegalArgumentException("Not a reachable state");
+        if (pairsLeft >= scores.length) grow(pairsLeft);
+        return new Expectation(scores[pairsLeft][knownSingles], turns[pairsLeft][knownSingles]);
+    }
+
+    // The final result the game can still expect with optimal play from now on. Pairs with both cards seen
+    // are matched first, a turn each. Call it between turns
+    public Expectation solve(MemoryGame game, KnowledgeIndex index) {
+        int knownPairs = index.knownPairCount();
+        int pairsLeft = game.getBoard().pairs() - game.getMatches() - knownPairs;
+        Expectation rest = solve(pairsLeft, index.knownSingleCount());
+        return new Expectation(game.getScore() + 10 * knownPairs + rest.score, knownPairs + rest.turns);
+    }
+
+    // Fills in every state up to the given number of pairs. A state only needs states with fewer pairs, or
+    // the same pairs and more cards seen, so each row is filled from its most known state down
+    private void grow(int pairs) {
+        int from = scores.length;
+        scores = Arrays.copyOf(scores, pairs + 1);
+        turns = Arrays.copyOf(turns, pairs + 1);
+        for (int n = from; n <= pairs; n++) {
+            scores[n] = new double[n + 1];
+            turns[n] = new double[n + 1];
+            for (int k = n; k >= 0; k--) solveState(n, k);
+        }
+    }
+
+    private void solveState(int n, int k) {
+        double unseen = 2 * n - k;
+        // A card never seen first. Its partner is known with probability k / unseen and is matched.
+        // Otherwise the second card is one never seen too: the partner, a known card's partner, which is
+        // matched next turn, or a new card. Two new cards never cost points
+        double score = 0;
+        double turnsTaken = 1;
+        if (k > 0) {
+            score += k / unseen * (10 + scores[n - 1][k - 1]);
+            turnsTaken += k / unseen * turns[n - 1][k - 1];
+        }
+        double fresh = (unseen - k) / unseen;
+        if (fresh > 0) {
+            double left = unseen - 1;
+            double match = 1 / left;
+            double knownPartner = k / left;
+            double newCard = (left - 1 - k) / left;
+            score += fresh * (match * (10 + scores[n - 1][k]) + knownPartner * (10 + scores[n - 1][k]));
+            turnsTaken += fresh * (match * turns[n - 1][k] + knownPartner * (1 + turns[n - 1][k]));
+            if (newCard > 0) {
+                score += fresh * newCard * scores[n][k + 2];
+                turnsTaken += fresh * newCard * turns[n][k + 2];
+            }
+        }
+        // A seen card first, then one never seen. Anything but its partner costs 2 points
+        if (k > 0) {
+            double partner = 1 / unseen;
+            double otherKnown = (k - 1) / unseen;
+            double newCard = (unseen - k) / unseen;
+            double seenScore = partner * (10 + scores[n - 1][k - 1]) + otherKnown * (8 + scores[n - 1][k - 1]);
+            double seenTurns = 1 + partner * turns[n - 1][k - 1] + otherKnown * (1 + turns[n - 1][k - 1]);
+            if (newCard > 0) {
+                seenScore += newCard * (-2 + scores[n][k + 1]);
+                seenTurns += newCard * turns[n][k + 1];
+            }
+            if (seenScore > score + 1e-9 || (seenScore > score - 1e-9 && seenTurns < turnsTaken)) {
+                score = seenScore;
+                turnsTaken = seenTurns;
+            }
+        }
+        scores[n][k] = score;
+        turns[n][k] = turnsTaken;
+    }
+}
@@ -0,0 +1,546 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+// Analytics of how people play, written to column files for offline queries
+// A Recorder listens to a game and turns its events into rows: one per turn (think time before the first
+// flip, time between the two flips, outcome, matches and score so far) and one per game (how it ended,
+// score, time, turns, matches and penalties). A game left with restartGame() ends with RESTARTED.
+// Rows go into batches that hold each column in its own array. A recorder only takes a short lock on one of
+// a few stripes to add a row, and a full batch is swapped for an empty one from the stripe's pool and queued
+// for a writer thread, so the game thread never waits for the disk and never allocates. The pools are
+// allocated up front. If the writer falls so far behind that a stripe has no empty batch left, the full
+// batch is dropped and counted instead.
+// The writer stores every column as zigzag varints of the difference to the row before, deflated, so ids
+// and board sizes cost next to nothing. Each run writes new files, games-NNNNNN.col and turns-NNNNNN.col.
+// Games that are still being played when the analytics are closed are not written
+class GameAnalytics {
+    static final String GAMES = "games";
+    static final String TURNS = "turns";
+    static final String[] GAME_COLUMNS =
+        {"session", "game", "pairs", "reason", "score", "millis", "turns", "matches", "penalties"};
+    static final String[] TURN_COLUMNS =
+        {"session", "game", "pairs", "turn", "outcome", "thinkMicros", "flipMicros", "elapsedMillis", "matches", "score"};
+    // The reason column holds a GameOverReason ordinal, or this for a game that was restarted
+    static final int RESTARTED = MemoryGame.GameOverReason.values().length;
+
+    static final int MAGIC = 0x4d47434c; // "MGCL"
+    static final int VERSION = 1;
+    static final int BATCH_ROWS = 1024;
+    private static final int MAX_STRIPES = 8;
+    // Empty batches per table, shared out over the stripes. About 30 ms of turns from a game thread flat out
+    private static final int SPARE_BATCHES = 32;
+    private static final long FLUSH_INTERVAL_MILLIS = 1000; // Partly filled batches are written this often
+
+    // One batch of rows, column by column
+    private static final class Batch {
+        final boolean games;
+        final long[][] columns;
+        final BlockingQueue<Batch> pool; // Where the writer puts the batch back once it is written
+        int rows;
+
+        Batch(boolean games, BlockingQueue<Batch> pool) {
+            this.games = games;
+            this.columns = new long[games ? GAME_COLUMNS.length : TURN_COLUMNS.length][BATCH_ROWS];
+            this.pool = pool;
+        }
+    }
+
+    // The batches a group of recorders add their rows to, and the empty ones waiting to be swapped in
+    private static final class Stripe {
+        final BlockingQueue<Batch> freeGames;
+        final BlockingQueue<Batch> freeTurns;
+        Batch games;
+        Batch turns;
+
+        Stripe(int spares) {
+            freeGames = new ArrayBlockingQueue<>(spares + 1);
+            freeTurns = new ArrayBlockingQueue<>(spares + 1);
+            games = new Batch(true, freeGames);
+            turns = new Batch(false, freeTurns);
+            for (int i = 0; i < spares; i++) {
+                freeGames.add(new Batch(true, freeGames));
+                freeTurns.add(new Batch(false, freeTurns));
+            }
+        }
+    }
+
+    private static final Batch STOP = new Batch(true, null); // Tells the writer to finish
+
+    private final Stripe[] stripes;
+    private final BlockingQueue<Batch> written; // Has room for every batch, so queueing one never fails
+    private final AtomicLong lastSession = new AtomicLong();
+    private final AtomicLong lastGame = new AtomicLong();
+    private final LongAdder droppedRows = new LongAdder();
+    private final FileChannel gameFile;
+    private final FileChannel turnFile;
+    private final Thread writer;
+    private volatile boolean closed;
+    // The writer thread's buffers, grown as needed
+    private byte[] raw = new byte[BATCH_ROWS * 10];
+    private byte[] compressed = new byte[BATCH_ROWS * 10];
+    private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    private ByteBuffer block = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+
+    private GameAnalytics(FileChannel gameFile, FileChannel turnFile) {
+        this.gameFile = gameFile;
+        this.turnFile = turnFile;
+        stripes = new Stripe[Math.min(Runtime.getRuntime().availableProcessors(), MAX_STRIPES)];
+        int spares = Math.max(2, SPARE_BATCHES / stripes.length);
+        for (int i = 0; i < stripes.length; i++) stripes[i] = new Stripe(spares);
+        written = new ArrayBlockingQueue<>(stripes.length * 2 * (spares + 1) + 1);
+        writer = new Thread(this::write, "analytics-writer");
+        writer.setDaemon(true);
+    }
+
+    // Starts writing analytics to new files in the directory
+    public static GameAnalytics open(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        int index = 0;
+        for (String table : new String[] {GAMES, TURNS}) {
+            for (Path file : files(directory, table)) index = Math.max(index, fileIndex(file) + 1);
+        }
+        FileChannel games = create(directory.resolve(String.format("%s-%06d.col", GAMES, index)), GAME_COLUMNS);
+        FileChannel turns;
+        try {
+            turns = create(directory.resolve(String.format("%s-%06d.col", TURNS, index)), TURN_COLUMNS);
+        } catch (IOException e) {
+            games.close();
+            throw e;
+        }
+        GameAnalytics analytics = new GameAnalytics(games, turns);
+        analytics.writer.start();
+        return analytics;
+    }
+
+    // The header is the magic number, the version and the column names
+    private static FileChannel create(Path file, String[] columns) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        ByteBuffer header = ByteBuffer.allocate(12 + 64 * columns.length).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putInt(VERSION).putInt(columns.length);
+        for (String column : columns) {
+            byte[] name = column.getBytes(StandardCharsets.US_ASCII);
+            header.put((byte) name.length).put(name);
+        }
+        header.flip();
+        while (header.hasRemaining()) channel.write(header);
+        return channel;
+    }
+
+    // Records the game from its current board on. It gets a session id of its own
+    public Recorder attach(MemoryGame game) {
+        return attach(game, lastSession.incrementAndGet());
+    }
+
+    // Records the game under the given session id, like the id it has in the move journal
+    public Recorder attach(MemoryGame game, long sessionId) {
+        Recorder recorder = new Recorder(game, sessionId, stripes[Math.floorMod(sessionId, stripes.length)]);
+        synchronized (game) {
+            recorder.boardDealt();
+            game.addGameListener(recorder);
+        }
+        return recorder;
+    }
+
+    // Rows that were thrown away because the writer could not keep up
+    public long droppedRows() { return droppedRows.sum(); }
+
+    // Stops the writer once it has written everything recorded so far. Rows added after this are ignored
+    public void close() {
+        if (closed) return;
+        closed = true;
+        try {
+            written.put(STOP);
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Hands the partly filled batches to the writer, for the stripes that have an empty batch to spare
+    private void flush() {
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                if (stripe.games.rows > 0) stripe.games = handOff(stripe.games);
+                if (stripe.turns.rows > 0) stripe.turns = handOff(stripe.turns);
+            }
+        }
+    }
+
+    // Queues a batch for the writer and returns an empty one from the pool. Called holding the stripe's lock.
+    // With the pool empty a full batch is dropped and reused, and one that is not full yet is kept
+    private Batch handOff(Batch batch) {
+        Batch empty = batch.pool.poll();
+        if (empty == null) {
+            if (batch.rows == BATCH_ROWS) {
+                droppedRows.add(batch.rows);
+                batch.rows = 0;
+            }
+            return batch;
+        }
+        written.add(batch);
+        return empty;
+    }
+
+    private void addGame(Stripe stripe, long session, long game, int pairs, int reason, int score, long millis,
+            int turns, int matches, int penalties) {
+        if (closed) return;
+        synchronized (stripe) {
+            Batch batch = stripe.games;
+            long[][] columns = batch.columns;
+            int row = batch.rows;
+            columns[0][row] = session;
+            columns[1][row] = game;
+            columns[2][row] = pairs;
+            columns[3][row] = reason;
+            columns[4][row] = score;
+            columns[5][row] = millis;
+            columns[6][row] = turns;
+            columns[7][row] = matches;
+            columns[8][row] = penalties;
+            if (++batch.rows == BATCH_ROWS) stripe.games = handOff(batch);
+        }
+    }
+
+    private void addTurn(Stripe stripe, long session, long game, int pairs, int turn, int outcome, long thinkMicros,
+            long flipMicros, long elapsedMillis, int matches, int score) {
+        if (closed) return;
+        synchronized (stripe) {
+            Batch batch = stripe.turns;
+            long[][] columns = batch.columns;
+            int row = batch.rows;
+            columns[0][row] = session;
+            columns[1][row] = game;
+            columns[2][row] = pairs;
+            columns[3][row] = turn;
+            columns[4][row] = outcome;
+            columns[5][row] = thinkMicros;
+            columns[6][row] = flipMicros;
+            columns[7][row] = elapsedMillis;
+            columns[8][row] = matches;
+            columns[9][row] = score;
+            if (++batch.rows == BATCH_ROWS) stripe.turns = handOff(batch);
+        }
+    }
+
+    // The writer thread. Between batches it flushes the stripes now and then, so rows reach the disk
+    // even when few games are played. When it is stopped it writes what is queued and then what is left in
+    // the stripes itself, so closing never has to wait for an empty batch
+    private void write() {
+        try {
+            long nextFlush = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(FLUSH_INTERVAL_MILLIS);
+            while (true) {
+                Batch batch = written.poll(FLUSH_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                if (batch == STOP) break;
+                if (batch != null) writeAndRecycle(batch);
+                if (System.nanoTime() - nextFlush >= 0) {
+                    flush();
+                    nextFlush = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(FLUSH_INTERVAL_MILLIS);
+                }
+            }
+            writeQueued();
+            for (Stripe stripe : stripes) {
+                synchronized (stripe) {
+                    if (stripe.games.rows > 0) writeBatch(stripe.games);
+                    if (stripe.turns.rows > 0) writeBatch(stripe.turns);
+                }
+            }
+            writeQueued(); // A batch handed off while the stripes were written
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            System.err.println("Could not write the game analytics: " + e.getMessage());
+        } finally {
+            deflater.end();
+            try {
+                gameFile.close();
+                turnFile.close();
+            } catch (IOException e) {
+                System.err.println("Could not close the game analytics: " + e.getMessage());
+            }
+        }
+    }
+
+    private void writeQueued() throws IOException {
+        Batch batch;
+        while ((batch = written.poll()) != null) {
+            if (batch != STOP) writeAndRecycle(batch);
+        }
+    }
+
+    private void writeAndRecycle(Batch batch) throws IOException {
+        writeBatch(batch);
+        batch.pool.add(batch);
+    }
+
+    // A block is the row count, the deflated and raw length of each column, then the deflated columns
+    private void writeBatch(Batch batch) throws IOException {
+        int count = batch.columns.length;
+        block.clear();
+        block.position(4 + 8 * count);
+        for (int column = 0; column < count; column++) {
+            int rawLength = encode(batch.columns[column], batch.rows);
+            deflater.reset();
+            deflater.setInput(raw, 0, rawLength);
+            deflater.finish();
+            int length = 0;
+            while (!deflater.finished()) {
+                if (length == compressed.length) compressed = Arrays.copyOf(compressed, length * 2);
+                length += deflater.deflate(compressed, length, compressed.length - length);
+            }
+            if (block.remaining() < length) block = grow(block, length);
+            block.put(compressed, 0, length);
+            block.putInt(4 + 8 * column, length);
+            block.putInt(8 + 8 * column, rawLength);
+        }
+        block.putInt(0, batch.rows);
+        block.flip();
+        FileChannel file = batch.games ? gameFile : turnFile;
+        while (block.hasRemaining()) file.write(block);
+        batch.rows = 0;
+    }
+
+    private static ByteBuffer grow(ByteBuffer block, int needed) {
+        ByteBuffer bigger = ByteBuffer.allocate(block.capacity() + needed).order(ByteOrder.LITTLE_ENDIAN);
+        block.flip();
+        return bigger.put(block);
+    }
+
+    // Zigzag varints of the difference to the value before, into raw. Returns the length
+    private int encode(long[] values, int rows) {
+        int at = 0;
+        long previous = 0;
+        for (int i = 0; i < rows; i++) {
+            long delta = values[i] - previous;
+            previous = values[i];
+            long zigzag = (delta << 1) ^ (delta >> 63);
+            while ((zigzag & ~0x7FL) != 0) {
+                raw[at++] = (byte) ((zigzag & 0x7F) | 0x80);
+                zigzag >>>= 7;
+            }
+            raw[at++] = (byte) zigzag;
+        }
+        return at;
+    }
+
+    // Receives the rows of a table a block at a time, with only the columns that were asked for.
+    // values[i] holds column i of the request, and the arrays are reused for the next block
+    interface BlockVisitor {
+        void block(int rows, long[][] values);
+    }
+
+    // Reads the given columns of a table from every file in the directory, oldest first.
+    // Only those columns are inflated. A block cut short at the end of a file, by a crash, is skipped
+    public static void scan(Path directory, String table, String[] columns, BlockVisitor visitor) throws IOException {
+        long[][] values = new long[columns.length][BATCH_ROWS];
+        byte[] buffer = new byte[BATCH_ROWS * 10];
+        Inflater inflater = new Inflater();
+        try {
+            for (Path file : files(directory, table)) {
+                MappedByteBuffer data;
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                    data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                }
+                data.order(ByteOrder.LITTLE_ENDIAN);
+                if (data.capacity() < 12 || data.getInt(0) != MAGIC || data.getInt(4) != VERSION) {
+                    throw new IOException("Not an analytics file: " + file);
+                }
+                int count = data.getInt(8);
+                List<String> names = new ArrayList<>();
+                int at = 12;
+                for (int i = 0; i < count; i++) {
+                    byte[] name = new byte[data.get(at)];
+                    data.get(at + 1, name);
+                    names.add(new String(name, StandardCharsets.US_ASCII));
+                    at += 1 + name.length;
+                }
+                int[] wanted = new int[columns.length];
+                for (int i = 0; i < columns.length; i++) {
+                    wanted[i] = names.indexOf(columns[i]);
+                    if (wanted[i] < 0) throw new IOException("No column " + columns[i] + " in " + file);
+                }
+                while (at + 4 + 8 * count <= data.capacity()) {
+                    int rows = data.getInt(at);
+                    int[] offsets = new int[count + 1];
+                    offsets[0] = at + 4 + 8 * count;
+                    for (int i = 0; i < count; i++) offsets[i + 1] = offsets[i] + data.getInt(at + 4 + 8 * i);
+                    if (rows <= 0 || rows > BATCH_ROWS || offsets[count] > data.capacity()) break;
+                    for (int i = 0; i < columns.length; i++) {
+                        int column = wanted[i];
+                        int rawLength = data.getInt(at + 8 + 8 * column);
+                        if (buffer.length < rawLength) buffer = new byte[rawLength];
+                        inflater.reset();
+                        inflater.setInput(data.slice(offsets[column], offsets[column + 1] - offsets[column]));
+                        try {
+                            int length = 0;
+                            while (length < rawLength && !inflater.finished()) {
+                                length += inflater.inflate(buffer, length, rawLength - length);
+                            }
+                        } catch (DataFormatException e) {
+                            throw new IOException("Damaged column " + columns[i] + " in " + file, e);
+                        }
+                        decode(buffer, rows, values[i]);
+                    }
+                    visitor.block(rows, values);
+                    at = offsets[count];
+                }
+            }
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static void decode(byte[] raw, int rows, long[] values) {
+        int at = 0;
+        long previous = 0;
+        for (int i = 0; i < rows; i++) {
+            long zigzag = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = raw[at++];
+                zigzag |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            previous += (zigzag >>> 1) ^ -(zigzag & 1);
+            values[i] = previous;
+        }
+    }
+
+    // The files of a table in the order they were written
+    private static List<Path> files(Path directory, String table) throws IOException {
+        if (!Files.isDirectory(directory)) return new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().matches(table + "-\\d{6}\\.col"))
+                .sorted()
+                .collect(Collectors.toList());
+        }
+    }
+
+    private static int fileIndex(Path file) {
+        String name = file.getFileName().toString();
+        return Integer.parseInt(name.substring(name.length() - 10, name.length() - 4));
+    }
+
+    // Turns one game's events into rows. Events come in under the game's lock, except the game over,
+    // so the recorder takes its own lock too
+    final class Recorder implements GameListener {
+        private final MemoryGame game;
+        private final long session;
+        private final Stripe stripe;
+        private final GameClock clock;
+        private long gameId = -1; // -1 while there is no game to record
+        private int pairs;
+        private long dealtAt;
+        private int score;
+        private int turns;
+        private int matches;
+        private int penalties;
+        private int faceUp; // Tiles up this turn
+        private long turnEndedAt; // When the last turn's second tile was flipped, or the board was dealt
+        private long firstAt;
+        private long secondAt;
+        private boolean penalty; // The score dropped after this turn's second tile
+
+        private Recorder(MemoryGame game, long session, Stripe stripe) {
+            this.game = game;
+            this.session = session;
+            this.stripe = stripe;
+            this.clock = game.getClock();
+        }
+
+        // Stops recording. A game that is still being played is not written
+        public void detach() { game.removeGameListener(this); }
+
+        // A new deal ends the game before it, if that one was still going
+        @Override
+        public synchronized void boardDealt() {
+            endTurn(false);
+            faceUp = 0;
+            if (gameId >= 0) endGame(RESTARTED);
+            Board board = game.getBoard();
+            if (board.size() == 0) return;
+            gameId = lastGame.incrementAndGet();
+            pairs = board.pairs();
+            dealtAt = clock.nanoTime();
+            turnEndedAt = dealtAt;
+            score = game.getScore();
+            matches = game.getMatches();
+            turns = 0;
+            penalties = 0;
+        }
+
+        @Override
+        public synchronized void tileFlipped(int position, boolean faceUp) {
+            if (faceUp) {
+                if (++this.faceUp == 1) {
+                    firstAt = clock.nanoTime();
+                } else if (this.faceUp == 2) {
+                    secondAt = clock.nanoTime();
+                    penalty = false;
+                }
+            } else if (this.faceUp > 0) {
+                endTurn(false); // The first tile of a missed turn going back down
+                this.faceUp--;
+            }
+        }
+
+        @Override
+        public synchronized void scoreChanged(int score) {
+            if (faceUp == 2 && score < this.score) penalty = true;
+            this.score = score;
+        }
+
+        @Override
+        public synchronized void matchMade(int first, int second) {
+            matches++;
+            endTurn(true);
+            faceUp = 0;
+        }
+
+        @Override
+        public synchronized void gameOver(MemoryGame.GameOverReason reason) {
+            endTurn(false);
+            faceUp = 0;
+            if (gameId >= 0) endGame(reason.ordinal());
+        }
+
+        // Writes the turn that has both tiles up. A match is written when it is made, anything else when
+        // the tiles go back down or the game ends first
+        private void endTurn(boolean match) {
+            if (faceUp != 2 || gameId < 0) return;
+            MemoryGame.TurnOutcome outcome = match ? MemoryGame.TurnOutcome.MATCH
+                : penalty ? MemoryGame.TurnOutcome.PENALTY : MemoryGame.TurnOutcome.MISS;
+            if (outcome == MemoryGame.TurnOutcome.PENALTY) penalties++;
+            addTurn(stripe, session, gameId, pairs, ++turns, outcome.ordinal(),
+                TimeUnit.NANOSECONDS.toMicros(firstAt - turnEndedAt), TimeUnit.NANOSECONDS.toMicros(secondAt - firstAt),
+                TimeUnit.NANOSECONDS.toMillis(secondAt - dealtAt), matches, score);
+            turnEndedAt = secondAt;
+        }
+
+        private void endGame(int reason) {
+            long millis = TimeUnit.NANOSECONDS.toMillis(clock.nanoTime() - dealtAt);
+            addGame(stripe, session, gameId, pairs, reason, score, millis, turns, matches, penalties);
+            gameId = -1;
+        }
+    }
+}
@@ -0,0 +1,7 @@
+// Monotonic time source for the game clock
+// Tests can plug in a ManualClock so a whole game runs in virtual time
+interface GameClock {
+    GameClock SYSTEM = System::nanoTime;
+
+    long nanoTime();
+}
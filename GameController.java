@@ -0,0 +1,189 @@
+import java.io.BufferedReader;
+import java.util.List;
+
+// The method that acts as the controller
+// Makes the model and view connect
+class GameController {
+    // Messages shown during play. They are constants, so showing one never builds a string
+    static final String PROMPT = "Enter the tile number to flip, 'h' for a hint, 'q' to quit, or 'r' to restart: ";
+    static final String ALREADY_FLIPPED = "Tile already flipped. Try again.";
+    static final String FIRST_TILE = "No match. Try again.";
+    static final String MATCH_FOUND = "Match found! (+10 Points)";
+    static final String PENALTY = "No match. You saw this card before! (-2 Points). Next turn.";
+    static final String OUT_OF_FLIPS = "No match. Out of flips. Next turn.";
+    static final String INVALID_INPUT = "Invalid input. Please enter a tile number.";
+    static final String INVALID_TILE = "Invalid tile number. Please enter a valid tile number.";
+    static final String TIME_UP = "Time's up! Game over.";
+    static final String NO_HINT = "No hint. Start the next turn first.";
+
+    private final MemoryGame memory;
+    private GameOutput output; // Instance of the view class
+    private BufferedReader input;
+    private volatile boolean boardChanged = true; // The terminal only redraws the board after a change
+    private Leaderboard leaderboard; // Null when results are not ranked
+    private TerminalLoop loop; // The loop this game's terminal session runs on
+    private KnowledgeIndex knowledge; // Everything the board has shown, for hints
+
+    // The input is the reader Main read the game mode from. A second reader on System.in would miss
+    // whatever the first one had already buffered
+    public GameController(MemoryGame memory, BufferedReader input) {
+        this(memory, input, new GameOutput());
+    }
+
+    public GameController(MemoryGame memory, BufferedReader input, GameOutput output) {
+        this.memory = memory;
+        this.output = output;
+        this.input = input;
+    }
+
+    // Records every finished game on the leaderboard and shows the player's rank
+    public void setLeaderboard(Leaderboard leaderboard) { this.leaderboard = leaderboard; }
+
+    // Ranks a finished game, or returns null when there is no leaderboard
+    String recordResult() {
+        if (leaderboard == null) return null;
+        int pairs = memory.getBoard().pairs();
+        long rank = leaderboard.record(pairs, memory.getScore(), memory.getSeconds());
+        return rankMessage(leaderboard, pairs, rank);
+    }
+
+    // The best results on the leaderboard for this board size, or null when there is no leaderboard
+    String topResults() {
+        return leaderboard == null ? null : topResults(leaderboard, memory.getBoard().pairs());
+    }
+
+    static String rankMessage(Leaderboard leaderboard, int pairs, long rank) {
+        return "Leaderboard rank: #" + rank + " of " + leaderboard.games(pairs) + " games with " + pairs + " pairs";
+    }
+
+    // One line per result, best first
+    static String topResults(Leaderboard leaderboard, int pairs) {
+        StringBuilder top = new StringBuilder("Best games with ").append(pairs).append(" pairs:");
+        List<Leaderboard.Entry> entries = leaderboard.top(pairs);
+        for (int i = 0; i < entries.size(); i++) top.append("\n  ").append(i + 1).append(". ").append(entries.get(i));
+        return top.toString();
+    }
+    
+    // Listens to the model for the terminal view
+    // The game can end on the timer wheel thread, so the end is handed to the terminal loop to be printed
+    private final class TerminalUpdater implements GameListener {
+        @Override
+        public void tileFlipped(int position, boolean faceUp) { boardChanged = true; }
+
+        @Override
+        public void boardDealt() { boardChanged = true; }
+
+        @Override
+        public void gameOver(MemoryGame.GameOverReason reason) { loop.gameOver(GameController.this, reason); }
+    }
+
+    // Playing method if the user selects the terminal view
+    // This thread runs a terminal loop with this game as its only session, until the game is over
+    public void play() {
+        TerminalLoop loop = new TerminalLoop();
+        loop.open(this, input);
+        loop.run();
+    }
+
+    // Deals the game and shows the first prompt. Called on the loop thread when the session is opened
+    void begin(TerminalLoop loop) {
+        this.loop = loop;
+        memory.addGameListener(new TerminalUpdater());
+        knowledge = KnowledgeIndex.attach(memory);
+        memory.initializeTiles(6);
+        memory.startTimer();
+        prompt();
+    }
+
+    // Calls the terminal to display the board when it changed, and the prompt
+    private void prompt() {
+        if (boardChanged) {
+            boardChanged = false;
+            output.displayBoard(memory.getBoard());
+        }
+        output.show(PROMPT);
+    }
+
+    // Runs one line the player typed. A null line is the end of the input, which quits too
+    void command(String input) {
+        // If time is up the game is cancelled. The gameOver event prints the message
+        if (memory.timeIsFinished()) {
+            memory.endGame();
+            return;
+        }
+
+        // Handles user input if they quit or restart
+        if (input == null || input.equalsIgnoreCase("q")) {
+            output.show("Quitting the game. Goodbye!");
+            memory.endGame();
+            memory.cancelTimer();
+            return;
+        } else if (input.equalsIgnoreCase("r")) {
+            output.show("Restarting the game...");
+            memory.restartGame();
+            prompt();
+            return;
+        } else if (input.equalsIgnoreCase("h")) {
+            // The tile a player with a perfect memory would flip next
+            output.show(hint(knowledge));
+            prompt();
+            return;
+        }
+        // Handles user errors
+        int tileIndex;
+        try {
+            tileIndex = Integer.parseInt(input);
+        } catch (NumberFormatException e) {
+            output.show(INVALID_INPUT);
+            prompt();
+            return;
+        }
+
+        if (tileIndex < 0 || tileIndex >= memory.getTiles().size()) {
+            output.show(INVALID_TILE);
+            prompt();
+            return;
+        }
+        // Flips a specific tile. The model scores the turn after the second tile:
+        // a match raises matchesFound and playerScore, a miss on a card that was seen before costs points
+        MemoryGame.FlipResult result = memory.flip(tileIndex);
+        if (result == MemoryGame.FlipResult.REJECTED) {
+            output.show(ALREADY_FLIPPED);
+        } else if (result == MemoryGame.FlipResult.FIRST_TILE) {
+            output.show(FIRST_TILE);
+        } else if (result == MemoryGame.FlipResult.MATCH) {
+            output.show(MATCH_FOUND);
+        } else {
+            output.show(result == MemoryGame.FlipResult.PENALTY ? PENALTY : OUT_OF_FLIPS);
+            memory.resetFlippedTiles(); // Reset the flips remaining for the next turn
+        }
+
+        if (memory.allMatched()) {
+            // Calls the view to output the user results
+            output.show("Congratulations! You found all the matches.");
+            output.show("Your final score: " + memory.getScore());
+            output.show("Time elapsed: " + memory.getSeconds() + " seconds");
+            memory.endGame();
+            return;
+        }
+        prompt();
+    }
+
+    // The hint shown for 'h', also by the server
+    static String hint(KnowledgeIndex knowledge) {
+        int hint = knowledge.hint();
+        return hint < 0 ? NO_HINT : "Hint: flip tile " + hint;
+    }
+
+    // Shows how the game ended. Called on the loop thread, after which the session is closed
+    void gameOver(MemoryGame.GameOverReason reason) {
+        if (reason == MemoryGame.GameOverReason.TIME_UP) output.show(TIME_UP);
+        if (reason != MemoryGame.GameOverReason.ENDED) {
+            String rank = recordResult();
+            if (rank != null) {
+                output.show(rank);
+                output.show(topResults());
+            }
+        }
+    }
+}
@@ -0,0 +1,21 @@
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("memorygame.GameEnd")
+@Label("Game End")
+@Category("Memory Game")
+class GameEndEvent extends Event {
+    @Label("Reason")
+    String reason;
+
+    @Label("Score")
+    int score;
+
+    @Label("Matches")
+    int matches;
+
+    @Label("Seconds")
+    int seconds;
+}
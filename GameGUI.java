@@ -0,0 +1,83 @@
+import javax.swing.*;
+import java.awt.*;
+
+// The second view in this program
+class GameGUI extends JFrame {
+    private final BoardPanel board;
+    
+    public JLabel scoreLabel;
+    public JLabel timeLabel;
+    public JLabel messageLabel;
+    // Label texts are made once and reused, so updating a label during play makes no new strings
+    private static final int SCORE_TEXTS_MIN = -512;
+    private static final String[] SCORE_TEXTS = new String[1536];
+    private final String[] timeTexts;
+
+    public GameGUI(MemoryGame memory, GuiController controller) {
+        
+        // Setting the size, layout, and title
+        setTitle("Memory Game - GUI");
+        setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        setSize(800, 500);
+        setLocationRelativeTo(null);
+        setLayout(new BorderLayout());
+
+        // Makes the top. Displays the score, seconds, and game duration
+        JPanel top = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        timeTexts = new String[memory.getGameDuration() + 1];
+        for (int i = 0; i < timeTexts.length; i++) timeTexts[i] = "Time: " + i + " / " + memory.getGameDuration();
+        scoreLabel = new JLabel(scoreText(memory.getScore()));
+        timeLabel = new JLabel(timeTexts[memory.getSeconds()]);
+        top.add(scoreLabel);
+        top.add(Box.createHorizontalStrut(20));
+        top.add(timeLabel);
+        add(top, BorderLayout.NORTH);
+
+        // Makes the grid for the cards. Big boards scroll
+        board = new BoardPanel(memory, controller);
+        add(new JScrollPane(board), BorderLayout.CENTER);
+
+        // The bottom of the JPanel. Allows restarting
+        JPanel bottomPanel = new JPanel(new BorderLayout());
+        messageLabel = new JLabel("Find all the pairs!", SwingConstants.CENTER);
+        bottomPanel.add(messageLabel, BorderLayout.CENTER);
+
+        JButton restartButton = new JButton("Restart");
+        restartButton.addActionListener(e -> controller.restartGame());
+        bottomPanel.add(restartButton, BorderLayout.EAST);
+
+        add(bottomPanel, BorderLayout.SOUTH);
+    }
+
+    public void refreshBoard() {
+        board.refresh();
+    }
+
+    public void showScore(int score) { scoreLabel.setText(scoreText(score)); }
+
+    public void showTime(int seconds) {
+        timeLabel.setText(seconds >= 0 && seconds < timeTexts.length ? timeTexts[seconds]
+            : "Time: " + seconds + " / " + (timeTexts.length - 1));
+    }
+
+    private static String scoreText(int score) {
+        int slot = score - SCORE_TEXTS_MIN;
+        if (slot < 0 || slot >= SCORE_TEXTS.length) return "Score: " + score;
+        String text = SCORE_TEXTS[slot];
+        if (text == null) {
+            text = "Score: " + score;
+            SCORE_TEXTS[slot] = text;
+        }
+        return text;
+    }
+
+    // Updates the button of a single tile
+    public void refreshTile(int index) {
+        board.refreshTile(index);
+    }
+
+    // Stops or allows clicks on the cards
+    public void setBoardEnabled(boolean enabled) {
+        board.setBoardEnabled(enabled);
+    }
+}
@@ -0,0 +1,131 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Hosts many games at once
+// Every session's countdown runs on the host's single timer wheel, so the thread count stays fixed
+// Each game only wakes the wheel once, when its deadline passes
+class GameHost {
+    private final TimerWheel wheel;
+    private final ConcurrentHashMap<Long, MemoryGame> sessions = new ConcurrentHashMap<>();
+    private final AtomicLong nextSessionId = new AtomicLong();
+    private final MoveJournal journal; // Null when moves are not journaled
+    private final GameAnalytics analytics; // Null when games are not recorded
+    private final Leaderboard leaderboard; // Null when results are not ranked
+
+    public GameHost() {
+        this(new TimerWheel(10, TimeUnit.MILLISECONDS, 512));
+    }
+
+    public GameHost(TimerWheel wheel) {
+        this(wheel, null);
+    }
+
+    // Every session's moves are written to the journal, under the session's id
+    public GameHost(TimerWheel wheel, MoveJournal journal) {
+        this(wheel, journal, null);
+    }
+
+    // Every session's turns and games are recorded in the analytics too, under the same id
+    public GameHost(TimerWheel wheel, MoveJournal journal, GameAnalytics analytics) {
+        this(wheel, journal, analytics, null);
+    }
+
+    // Every session that ends with all the matches found or the time up is ranked on the leaderboard too
+    public GameHost(TimerWheel wheel, MoveJournal journal, GameAnalytics analytics, Leaderboard leaderboard) {
+        this.wheel = wheel;
+        this.journal = journal;
+        this.analytics = analytics;
+        this.leaderboard = leaderboard;
+    }
+
+    // Creates a new game with the given number of pairs and starts its countdown
+    public long createSession(int pairs) {
+        MemoryGame game = new MemoryGame(wheel);
+        long id = journal != null ? journal.newSessionId() : nextSessionId.incrementAndGet();
+        if (journal != null) game.setJournal(journal, id);
+        if (analytics != null) analytics.attach(game, id);
+        if (leaderboard != null) leaderboard.track(game);
+        game.initializeTiles(pairs);
+        sessions.put(id, game);
+        game.startTimer();
+        return id;
+    }
+
+    // Gets a session's game, or null if it was evicted
+    public MemoryGame getSession(long id) { return sessions.get(id); }
+
+    // Ends a session's game now. The game stays on the host so its results can still be read
+    public boolean expireSession(long id) {
+        MemoryGame game = sessions.get(id);
+        if (game == null) return false;
+        game.endGame();
+        return true;
+    }
+
+    // Removes a session from the host and cancels its countdown
+    public MemoryGame evictSession(long id) {
+        MemoryGame game = sessions.remove(id);
+        if (game != null) game.cancelTimer();
+        return game;
+    }
+
+    // Pages an idle session out to a snapshot file and drops its game from memory.
+    // resumeSession brings it back under the same id, with the countdown where it was left.
+    // The game rejects every move from the moment its snapshot is taken, and it leaves the host before the
+    // file is written. If the file can not be written the game is put back as it was
+    public void suspendSession(long id, Path file) throws IOException {
+        MemoryGame game = sessions.remove(id);
+        if (game == null) throw new IllegalArgumentException("No session " + id);
+        ByteBuffer snapshot = game.suspend();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (snapshot.hasRemaining()) channel.write(snapshot);
+        } catch (IOException e) {
+            game.restoreSnapshot(new GameSnapshot(snapshot.rewind()));
+            sessions.put(id, game);
+            throw e;
+        }
+    }
+
+    // Loads a suspended session back from its snapshot file.
+    // The file is read into the heap rather than mapped, so nothing holds it open when it is deleted
+    public MemoryGame resumeSession(long id, Path file) throws IOException {
+        ByteBuffer snapshot;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) throw new IOException("Snapshot too big: " + file);
+            snapshot = ByteBuffer.allocate((int) channel.size());
+            while (snapshot.hasRemaining()) {
+                if (channel.read(snapshot) < 0) throw new IOException("Snapshot file ended early: " + file);
+            }
+            snapshot.flip();
+        }
+        MemoryGame game = new MemoryGame(wheel);
+        if (journal != null) game.setJournal(journal, id);
+        if (analytics != null) analytics.attach(game, id); // Recorded as a new game from where it was resumed
+        if (leaderboard != null) leaderboard.track(game);
+        game.restoreSnapshot(new GameSnapshot(snapshot));
+        sessions.put(id, game);
+        Files.delete(file);
+        return game;
+    }
+
+    public int sessionCount() { return sessions.size(); }
+
+    public TimerWheel getWheel() { return wheel; }
+
+    // The leaderboard sessions are ranked on, or null
+    public Leaderboard getLeaderboard() { return leaderboard; }
+
+    // Evicts every session and stops the wheel
+    public void shutdown() {
+        for (Long id : sessions.keySet()) evictSession(id);
+        wheel.stop();
+    }
+}
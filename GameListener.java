@@ -0,0 +1,23 @@
+// Receives changes from a MemoryGame, so views only update when something really changed
+// Events arrive on the thread that changed the game. tick and gameOver for a timed out game come
+// from the timer wheel thread, so views must hand the work over to their own thread
+interface GameListener {
+    // A tile was turned face up or flipped back face down
+    default void tileFlipped(int position, boolean faceUp) {}
+
+    default void matchMade(int first, int second) {}
+
+    default void scoreChanged(int score) {}
+
+    // Once per second of game time while the countdown runs, only if wantsTicks() says so
+    default void tick(int seconds) {}
+
+    // Ticks wake the timer wheel every second, so a game only schedules them while a listener asks for them.
+    // Everything else in a game needs a single wheel event, at the deadline
+    default boolean wantsTicks() { return false; }
+
+    default void gameOver(MemoryGame.GameOverReason reason) {}
+
+    // A new board was dealt, so everything on it should be redrawn
+    default void boardDealt() {}
+}
@@ -0,0 +1,137 @@
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Counters and latency histograms for the engine and both views, plus JFR events for game start, game end
+// and every turn. Counters are LongAdders and histograms are arrays of atomic buckets, so recording from
+// many games at once does not contend on one value.
+// Turn metrics on with -Dmemorygame.metrics=true. ENABLED is a constant, so when it is off the JIT drops
+// every metrics call from the hot paths. JFR events are only built while a recording has them enabled
+final class GameMetrics {
+    static final boolean ENABLED = Boolean.getBoolean("memorygame.metrics");
+
+    static final LongAdder FLIPS = new LongAdder();
+    static final LongAdder REJECTED_FLIPS = new LongAdder();
+    static final LongAdder MATCHES = new LongAdder();
+    static final LongAdder MISSES = new LongAdder();
+    static final LongAdder PENALTIES = new LongAdder();
+    static final LongAdder RESTARTS = new LongAdder();
+    static final LongAdder TIMER_EXPIRATIONS = new LongAdder();
+    static final LongAdder TIMER_TASK_FAILURES = new LongAdder();
+    static final LongAdder SERVER_FAILURES = new LongAdder();
+    static final LongAdder GAMES_STARTED = new LongAdder();
+    static final LongAdder GAMES_ENDED = new LongAdder();
+
+    // Time to flip a tile and, for the second tile, check for a match and score the turn
+    static final LatencyHistogram TURN = new LatencyHistogram();
+    static final LatencyHistogram TERMINAL_RENDER = new LatencyHistogram();
+    static final LatencyHistogram GUI_RENDER = new LatencyHistogram();
+
+    private GameMetrics() {
+    }
+
+    // Start time for the timers, 0 when metrics are off
+    static long start() { return ENABLED ? System.nanoTime() : 0; }
+
+    static void turn(int position, MemoryGame.FlipResult result, long started) {
+        long nanos = System.nanoTime() - started;
+        TURN.record(nanos);
+        switch (result) {
+            case REJECTED:
+                REJECTED_FLIPS.increment();
+                break;
+            case MATCH:
+                MATCHES.increment();
+                break;
+            case MISS:
+                MISSES.increment();
+                break;
+            case PENALTY:
+                PENALTIES.increment();
+                break;
+            default:
+                break;
+        }
+        if (result != MemoryGame.FlipResult.REJECTED) FLIPS.increment();
+        TurnEvent event = new TurnEvent();
+        if (event.shouldCommit()) {
+            event.position = position;
+            event.outcome = result.name();
+            event.turnTime = nanos;
+            event.commit();
+        }
+    }
+
+    static void gameStarted(int pairs, long seed) {
+        GAMES_STARTED.increment();
+        GameStartEvent event = new GameStartEvent();
+        if (event.shouldCommit()) {
+            event.pairs = pairs;
+            event.seed = seed;
+            event.commit();
+        }
+    }
+
+    static void gameEnded(MemoryGame.GameOverReason reason, int score, int matches, int seconds) {
+        GAMES_ENDED.increment();
+        GameEndEvent event = new GameEndEvent();
+        if (event.shouldCommit()) {
+            event.reason = reason.name();
+            event.score = score;
+            event.matches = matches;
+            event.seconds = seconds;
+            event.commit();
+        }
+    }
+
+    // Reads every counter and histogram. Values recorded while this runs may or may not be included
+    static Snapshot snapshot() {
+        Map<String, Long> counters = new TreeMap<>();
+        counters.put("flips", FLIPS.sum());
+        counters.put("flips.rejected", REJECTED_FLIPS.sum());
+        counters.put("matches", MATCHES.sum());
+        counters.put("misses", MISSES.sum());
+        counters.put("penalties", PENALTIES.sum());
+        counters.put("restarts", RESTARTS.sum());
+        counters.put("timer.expirations", TIMER_EXPIRATIONS.sum());
+        counters.put("timer.task_failures", TIMER_TASK_FAILURES.sum());
+        counters.put("server.failures", SERVER_FAILURES.sum());
+        counters.put("games.started", GAMES_STARTED.sum());
+        counters.put("games.ended", GAMES_ENDED.sum());
+        Map<String, LatencyHistogram.Summary> histograms = new TreeMap<>();
+        histograms.put("turn", TURN.summary());
+        histograms.put("render.terminal", TERMINAL_RENDER.summary());
+        histograms.put("render.gui", GUI_RENDER.summary());
+        return new Snapshot(counters, histograms);
+    }
+
+    // Metrics at one point in time. toString() gives one "name value" line per number, for scraping
+    static final class Snapshot {
+        private final Map<String, Long> counters;
+        private final Map<String, LatencyHistogram.Summary> histograms;
+
+        Snapshot(Map<String, Long> counters, Map<String, LatencyHistogram.Summary> histograms) {
+            this.counters = counters;
+            this.histograms = histograms;
+        }
+
+        public long getCounter(String name) { return counters.getOrDefault(name, 0L); }
+        public LatencyHistogram.Summary getHistogram(String name) { return histograms.get(name); }
+        public Map<String, Long> getCounters() { return counters; }
+        public Map<String, LatencyHistogram.Summary> getHistograms() { return histograms; }
+
+        @Override
+        public String toString() {
+            StringBuilder text = new StringBuilder();
+            counters.forEach((name, value) -> text.append(name).append(' ').append(value).append('\n'));
+            histograms.forEach((name, summary) -> {
+                text.append(name).append(".count ").append(summary.getCount()).append('\n');
+                text.append(name).append(".mean_ns ").append(summary.getMean()).append('\n');
+                text.append(name).append(".p50_ns ").append(summary.getP50()).append('\n');
+                text.append(name).append(".p99_ns ").append(summary.getP99()).append('\n');
+                text.append(name).append(".max_ns ").append(summary.getMax()).append('\n');
+            });
+            return text.toString();
+        }
+    }
+}
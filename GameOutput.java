@@ -0,0 +1,225 @@
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// Terminal output view
+// The board is built into one reusable buffer and written with a single call per frame.
+// In ANSI mode the screen is drawn once and after that only the cells that changed are redrawn.
+// Cells are read straight from the Board's arrays, so a frame makes no objects however big the board is.
+// Turn ANSI mode on with -Dmemorygame.ansi=true
+class GameOutput {
+    private static final byte[] LINE = System.lineSeparator().getBytes(StandardCharsets.US_ASCII);
+    private static final int COLUMNS = 6;
+
+    private final PrintStream out;
+    private final boolean ansi;
+    private byte[] frame = new byte[4096];
+    private int length;
+    // What each cell showed in the last ANSI frame: the symbol id, or -1 when face down
+    private int[] lastCells;
+    private int cellWidth;
+    private int labelWidth;
+
+    public GameOutput() {
+        this(System.out, Boolean.getBoolean("memorygame.ansi"));
+    }
+
+    // Prints to another stream, for example a null stream in the benchmarks
+    public GameOutput(PrintStream out) {
+        this(out, false);
+    }
+
+    public GameOutput(PrintStream out, boolean ansi) {
+        this.out = out;
+        this.ansi = ansi;
+    }
+
+    public void displayBoard(Board board) {
+        long started = GameMetrics.start();
+        length = 0;
+        if (!ansi) {
+            drawPlain(board);
+        } else if (lastCells == null || lastCells.length != board.size()) {
+            drawScreen(board);
+        } else {
+            drawChanges(board);
+        }
+        out.write(frame, 0, length);
+        out.flush();
+        if (GameMetrics.ENABLED) GameMetrics.TERMINAL_RENDER.record(System.nanoTime() - started);
+    }
+
+    // Makes the next ANSI frame redraw the whole screen
+    public void invalidate() {
+        lastCells = null;
+    }
+
+    public void show(String message) {
+        out.println(message);
+    }
+
+    // The original scrolling layout, one line of tile numbers and then rows of 6 cards
+    private void drawPlain(Board board) {
+        appendLine();
+        append("------- Memory Game -------");
+        appendLine();
+        append("   ");
+        for (int i = 0; i < board.size(); i++) {
+            appendInt(i);
+            appendByte('\t');
+        }
+        appendLine();
+        for (int i = 0; i < board.size(); i++) {
+            if (i % COLUMNS == 0) {
+                appendLine();
+                appendInt(i / COLUMNS);
+                append("  ");
+            }
+            appendCell(board, i);
+            appendByte('\t');
+        }
+        appendLine();
+        append("---------------------------");
+        appendLine();
+    }
+
+    // Clears the screen and draws the whole board at the top. Cells are padded to a fixed
+    // width so each one can be redrawn in place later
+    private void drawScreen(Board board) {
+        int size = board.size();
+        int rows = (size + COLUMNS - 1) / COLUMNS;
+        cellWidth = Math.max(8, digits(size - 1) + 4);
+        labelWidth = digits(Math.max(rows - 1, 0)) + 2;
+        lastCells = new int[size];
+
+        append("\u001b[H\u001b[2J");
+        append("------- Memory Game -------");
+        appendLine();
+        appendSpaces(labelWidth);
+        for (int c = 0; c < COLUMNS; c++) {
+            int start = length;
+            appendInt(c);
+            appendSpaces(cellWidth - (length - start));
+        }
+        appendLine();
+        for (int i = 0; i < size; i++) {
+            if (i % COLUMNS == 0) {
+                if (i > 0) appendLine();
+                int start = length;
+                appendInt(i / COLUMNS);
+                appendSpaces(labelWidth - (length - start));
+            }
+            lastCells[i] = cell(board, i);
+            appendPaddedCell(board, i);
+        }
+        appendLine();
+        append("---------------------------");
+        appendLine();
+        moveToStatus(rows);
+    }
+
+    // Redraws only the cells that changed since the last frame
+    private void drawChanges(Board board) {
+        for (int i = 0; i < board.size(); i++) {
+            int cell = cell(board, i);
+            if (cell == lastCells[i]) continue;
+            lastCells[i] = cell;
+            // The board starts on row 3 of the screen, rows and columns are 1-based
+            appendCursor(3 + i / COLUMNS, 1 + labelWidth + (i % COLUMNS) * cellWidth);
+            appendPaddedCell(board, i);
+        }
+        moveToStatus((board.size() + COLUMNS - 1) / COLUMNS);
+    }
+
+    // Puts the cursor under the board and clears the old messages and input there
+    private void moveToStatus(int rows) {
+        appendCursor(4 + rows, 1);
+        append("\u001b[J");
+    }
+
+    // What a cell shows: its symbol id, or -1 when it is face down
+    private static int cell(Board board, int index) {
+        return board.isFlipped(index) ? board.symbolAt(index) : -1;
+    }
+
+    private void appendCell(Board board, int index) {
+        if (board.isFlipped(index)) {
+            int symbol = board.symbolAt(index);
+            if (symbol < 26) {
+                appendByte('A' + symbol);
+            } else {
+                appendInt(symbol);
+            }
+        } else {
+            appendByte('[');
+            appendInt(index);
+            appendByte(']');
+        }
+    }
+
+    private void appendPaddedCell(Board board, int index) {
+        int start = length;
+        appendCell(board, index);
+        appendSpaces(cellWidth - (length - start));
+    }
+
+    private void appendCursor(int row, int column) {
+        append("\u001b[");
+        appendInt(row);
+        appendByte(';');
+        appendInt(column);
+        appendByte('H');
+    }
+
+    private void appendLine() {
+        ensure(LINE.length);
+        System.arraycopy(LINE, 0, frame, length, LINE.length);
+        length += LINE.length;
+    }
+
+    // Only for ASCII text, which is all the board ever contains
+    private void append(String text) {
+        ensure(text.length());
+        for (int i = 0; i < text.length(); i++) frame[length++] = (byte) text.charAt(i);
+    }
+
+    private void appendByte(int b) {
+        ensure(1);
+        frame[length++] = (byte) b;
+    }
+
+    private void appendSpaces(int count) {
+        if (count <= 0) return;
+        ensure(count);
+        Arrays.fill(frame, length, length + count, (byte) ' ');
+        length += count;
+    }
+
+    // Writes the digits straight into the buffer, without making a String
+    private void appendInt(int value) {
+        if (value < 0) {
+            appendByte('-');
+            value = -value;
+        }
+        int digits = digits(value);
+        ensure(digits);
+        for (int i = length + digits - 1; i >= length; i--) {
+            frame[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        length += digits;
+    }
+
+    private static int digits(int value) {
+        int digits = 1;
+        while (value >= 10) {
+            value /= 10;
+            digits++;
+        }
+        return digits;
+    }
+
+    private void ensure(int extra) {
+        if (length + extra > frame.length) frame = Arrays.copyOf(frame, Math.max(frame.length * 2, length + extra));
+    }
+}
@@ -0,0 +1,325 @@
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+// Lets remote players play the terminal game over TCP
+// One selector thread serves every connection, and each connection gets its own session on a GameHost.
+// Clients send the terminal's commands, one per line: a tile number, q to quit or r to restart.
+// They get back exactly what the terminal would print, ending with the prompt for the next command
+class GameServer {
+    private static final int MAX_LINE = 64;
+
+    private final GameHost host;
+    private final int pairs;
+    private final Selector selector;
+    private final ServerSocketChannel server;
+    private final Thread thread;
+    // Everything is drawn on the selector thread, so one output serves every connection
+    private final FrameSink sink = new FrameSink();
+    private final GameOutput output = new GameOutput(new PrintStream(sink, false), false);
+    // Connections whose game was timed out by the wheel thread, handed over to the selector thread
+    private final ConcurrentLinkedQueue<Connection> timedOut = new ConcurrentLinkedQueue<>();
+    private volatile boolean running = true;
+
+    public GameServer(GameHost host, InetSocketAddress address, int pairs) throws IOException {
+        this.host = host;
+        this.pairs = pairs;
+        selector = Selector.open();
+        server = ServerSocketChannel.open();
+        server.bind(address, 4096);
+        server.configureBlocking(false);
+        server.register(selector, SelectionKey.OP_ACCEPT);
+        thread = new Thread(this::run, "game-server");
+    }
+
+    public void start() { thread.start(); }
+
+    public int getPort() { return server.socket().getLocalPort(); }
+
+    // Closes every connection and ends their sessions
+    public void stop() {
+        running = false;
+        selector.wakeup();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // State of one connected player
+    private final class Connection implements GameListener {
+        final SocketChannel channel;
+        final SelectionKey key;
+        final long sessionId;
+        final MemoryGame game;
+        final KnowledgeIndex knowledge; // For hints
+        final ByteBuffer in = ByteBuffer.allocate(MAX_LINE);
+        ByteBuffer out = ByteBuffer.allocate(512);
+        volatile boolean boardChanged = true;
+        boolean closing; // The game is over, close once the last reply is sent
+
+        Connection(SocketChannel channel, SelectionKey key) {
+            this.channel = channel;
+            this.key = key;
+            sessionId = host.createSession(pairs);
+            game = host.getSession(sessionId);
+            game.addGameListener(this);
+            knowledge = KnowledgeIndex.attach(game);
+        }
+
+        @Override
+        public void tileFlipped(int position, boolean faceUp) { boardChanged = true; }
+
+        @Override
+        public void boardDealt() { boardChanged = true; }
+
+        @Override
+        public void gameOver(MemoryGame.GameOverReason reason) {
+            if (reason == MemoryGame.GameOverReason.TIME_UP) {
+                timedOut.add(this);
+                selector.wakeup();
+            }
+        }
+    }
+
+    // PrintStream target whose bytes are copied straight into a connection's output buffer
+    private static final class FrameSink extends ByteArrayOutputStream {
+        void drainTo(Connection connection) {
+            if (connection.out.remaining() < count) {
+                ByteBuffer bigger = ByteBuffer.allocate(Math.max(connection.out.capacity() * 2, connection.out.position() + count));
+                connection.out.flip();
+                bigger.put(connection.out);
+                connection.out = bigger;
+            }
+            connection.out.put(buf, 0, count);
+            reset();
+        }
+    }
+
+    private void run() {
+        try {
+            while (running) {
+                selector.select();
+                Connection connection;
+                while ((connection = timedOut.poll()) != null) timeUp(connection);
+                for (SelectionKey key : selector.selectedKeys()) {
+                    if (!key.isValid()) continue;
+                    try {
+                        if (key.isAcceptable()) {
+                            accept();
+                        } else {
+                            if (key.isReadable()) read((Connection) key.attachment());
+                            if (key.isValid() && key.isWritable()) flush((Connection) key.attachment());
+                        }
+                    } catch (IOException e) {
+                        if (key.attachment() != null) close((Connection) key.attachment());
+                    }
+                }
+                selector.selectedKeys().clear();
+            }
+        } catch (IOException e) {
+            if (GameMetrics.ENABLED) GameMetrics.SERVER_FAILURES.increment();
+            System.err.println("The game server stopped: " + e.getMessage());
+        } finally {
+            for (SelectionKey key : selector.keys()) {
+                if (key.attachment() != null) close((Connection) key.attachment());
+            }
+            try {
+                server.close();
+                selector.close();
+            } catch (IOException e) {
+                if (GameMetrics.ENABLED) GameMetrics.SERVER_FAILURES.increment();
+                System.err.println("Could not close the game server: " + e.getMessage());
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = server.accept()) != null) {
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+            Connection connection = new Connection(channel, key);
+            key.attach(connection);
+            prompt(connection);
+            flush(connection);
+        }
+    }
+
+    // Reads what arrived and runs every complete line in it
+    private void read(Connection connection) throws IOException {
+        if (connection.channel.read(connection.in) < 0) {
+            close(connection);
+            return;
+        }
+        ByteBuffer in = connection.in;
+        int start = 0;
+        for (int i = 0; i < in.position() && !connection.closing; i++) {
+            if (in.get(i) != '\n') continue;
+            command(connection, in, start, i);
+            start = i + 1;
+        }
+        if (connection.closing) {
+            in.clear();
+        } else if (start > 0) {
+            in.limit(in.position()).position(start);
+            in.compact();
+        } else if (!in.hasRemaining()) {
+            in.clear(); // a line this long can not be a command
+            output.show(GameController.INVALID_INPUT);
+            prompt(connection);
+        }
+        flush(connection);
+    }
+
+    // Runs one command, the same way GameController.play() does for the local terminal
+    private void command(Connection connection, ByteBuffer in, int start, int end) {
+        MemoryGame game = connection.game;
+        if (end > start && in.get(end - 1) == '\r') end--;
+        if (game.timeIsFinished()) {
+            timeUp(connection);
+            return;
+        }
+        int tileIndex = parseTile(in, start, end);
+        if (tileIndex == -2) {
+            int command = in.get(start) | 0x20; // lower case
+            if (end - start == 1 && command == 'q') {
+                output.show("Quitting the game. Goodbye!");
+                end(connection);
+                return;
+            } else if (end - start == 1 && command == 'r') {
+                output.show("Restarting the game...");
+                game.restartGame();
+            } else if (end - start == 1 && command == 'h') {
+                output.show(GameController.hint(connection.knowledge));
+            } else {
+                output.show(GameController.INVALID_INPUT);
+            }
+        } else if (tileIndex < 0 || tileIndex >= game.getBoard().size()) {
+            output.show(GameController.INVALID_TILE);
+        } else {
+            MemoryGame.FlipResult result = game.flip(tileIndex);
+            if (result == MemoryGame.FlipResult.REJECTED) {
+                output.show(GameController.ALREADY_FLIPPED);
+            } else if (result == MemoryGame.FlipResult.FIRST_TILE) {
+                output.show(GameController.FIRST_TILE);
+            } else if (result == MemoryGame.FlipResult.MATCH) {
+                output.show(GameController.MATCH_FOUND);
+            } else {
+                output.show(result == MemoryGame.FlipResult.PENALTY ? GameController.PENALTY : GameController.OUT_OF_FLIPS);
+                game.resetFlippedTiles();
+            }
+            if (game.allMatched()) {
+                output.displayBoard(game.getBoard());
+                output.show("Congratulations! You found all the matches.");
+                output.show("Your final score: " + game.getScore());
+                output.show("Time elapsed: " + game.getSeconds() + " seconds");
+                finish(connection);
+                return;
+            }
+        }
+        prompt(connection);
+    }
+
+    // The tile number on the line, -1 for a number out of range, or -2 if the line is not a number.
+    // A sign is read like Integer.parseInt reads it in the terminal, so "-1" is a tile number out of range too
+    private static int parseTile(ByteBuffer in, int start, int end) {
+        boolean negative = false;
+        if (end - start > 1 && (in.get(start) == '-' || in.get(start) == '+')) {
+            negative = in.get(start) == '-';
+            start++;
+        }
+        if (start == end || end - start > 9) return end - start > 9 && isDigits(in, start, end) ? -1 : -2;
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            int digit = in.get(i) - '0';
+            if (digit < 0 || digit > 9) return -2;
+            value = value * 10 + digit;
+        }
+        return negative && value > 0 ? -1 : value;
+    }
+
+    private static boolean isDigits(ByteBuffer in, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (in.get(i) < '0' || in.get(i) > '9') return false;
+        }
+        return true;
+    }
+
+    // Draws the board if it changed and asks for the next command
+    private void prompt(Connection connection) {
+        if (connection.boardChanged) {
+            connection.boardChanged = false;
+            output.displayBoard(connection.game.getBoard());
+        }
+        output.show(GameController.PROMPT);
+        sink.drainTo(connection);
+    }
+
+    private void timeUp(Connection connection) {
+        if (connection.closing || !connection.key.isValid()) return;
+        output.show(GameController.TIME_UP);
+        finish(connection);
+        try {
+            flush(connection);
+        } catch (IOException e) {
+            close(connection);
+        }
+    }
+
+    // Ends a game that was won or ran out of time, and shows its rank once the host has ranked it
+    private void finish(Connection connection) {
+        host.expireSession(connection.sessionId);
+        Leaderboard leaderboard = host.getLeaderboard();
+        if (leaderboard != null) {
+            int pairs = connection.game.getBoard().pairs();
+            output.show(GameController.rankMessage(leaderboard, pairs, leaderboard.rank(pairs, connection.game.getScore())));
+            output.show(GameController.topResults(leaderboard, pairs));
+        }
+        end(connection);
+    }
+
+    // Ends the session and closes the connection once the last reply has been sent
+    private void end(Connection connection) {
+        sink.drainTo(connection);
+        connection.closing = true;
+        host.expireSession(connection.sessionId);
+    }
+
+    private void flush(Connection connection) throws IOException {
+        ByteBuffer out = connection.out;
+        out.flip();
+        connection.channel.write(out);
+        out.compact();
+        if (out.position() > 0) {
+            connection.key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+        } else if (connection.closing) {
+            close(connection);
+        } else {
+            connection.key.interestOps(SelectionKey.OP_READ);
+        }
+    }
+
+    private void close(Connection connection) {
+        connection.key.cancel();
+        connection.game.removeGameListener(connection);
+        connection.knowledge.detach();
+        host.expireSession(connection.sessionId); // a game left by a disconnect still ends in the journal and analytics
+        host.evictSession(connection.sessionId);
+        try {
+            connection.channel.close();
+        } catch (IOException e) {
+            // already closed by the other side
+        }
+    }
+}
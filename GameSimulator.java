@@ -0,0 +1,106 @@
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+
+// Plays games headless with bot players, split over all cores with fork/join
+// Game i is always dealt from the same seed, so a run can be repeated exactly
+class GameSimulator {
+    private static final int GAMES_PER_TASK = 256;
+
+    private final int pairs;
+    private final BotStrategy strategy;
+    private final long seed;
+    private final int maxTurns;
+
+    public GameSimulator(int pairs, BotStrategy strategy, long seed) {
+        this(pairs, strategy, seed, Integer.MAX_VALUE);
+    }
+
+    public GameSimulator(int pairs, BotStrategy strategy, long seed, int maxTurns) {
+        this.pairs = pairs;
+        this.strategy = strategy;
+        this.seed = seed;
+        this.maxTurns = maxTurns;
+    }
+
+    public SimulationReport run(long games) {
+        return ForkJoinPool.commonPool().invoke(new SimulationTask(0, games));
+    }
+
+    // Seed of game i, spread out so neighbouring games get unrelated boards
+    public long gameSeed(long game) {
+        return new SplittableRandom(seed + game * 0x9E3779B97F4A7C15L).nextLong();
+    }
+
+    private SimulationReport playRange(long from, long to) {
+        SimulationReport report = new SimulationReport();
+        // Games are never started, so the manual wheel never has anything scheduled on it
+        TimerWheel wheel = TimerWheel.manual(new ManualClock(), 1, TimeUnit.SECONDS, 1);
+        for (long i = from; i < to; i++) {
+            long gameSeed = gameSeed(i);
+            MemoryGame game = new MemoryGame(wheel);
+            game.initializeTiles(pairs, gameSeed);
+            Bot bot = strategy.newBot(new SplittableRandom(~gameSeed));
+            long start = System.nanoTime();
+            int turns = playGame(game, bot, report);
+            report.nanos.record(System.nanoTime() - start);
+            report.turns.record(turns);
+            report.scores.record(game.getScore());
+            if (!game.allMatched()) report.unfinished++;
+        }
+        return report;
+    }
+
+    // Plays one game to the end and returns the number of turns
+    private int playGame(MemoryGame game, Bot bot, SimulationReport report) {
+        Board board = game.getBoard();
+        bot.start(board.size());
+        int turns = 0;
+        while (!game.allMatched() && turns < maxTurns) {
+            int first = bot.firstFlip();
+            flip(game, first);
+            bot.revealed(first, board.symbolAt(first));
+            int second = bot.secondFlip(first);
+            MemoryGame.FlipResult result = flip(game, second);
+            bot.revealed(second, board.symbolAt(second));
+
+            if (result == MemoryGame.FlipResult.MATCH) {
+                bot.matched(first, second, board.symbolAt(first));
+            } else {
+                if (result == MemoryGame.FlipResult.PENALTY) report.penalties++;
+                game.resetFlippedTiles();
+            }
+            turns++;
+        }
+        return turns;
+    }
+
+    private static MemoryGame.FlipResult flip(MemoryGame game, int position) {
+        MemoryGame.FlipResult result = game.flip(position);
+        if (result == MemoryGame.FlipResult.REJECTED) throw new IllegalStateException("Bot flipped a face up tile " + position);
+        return result;
+    }
+
+    @SuppressWarnings("serial") // Tasks are never serialized
+    private final class SimulationTask extends RecursiveTask<SimulationReport> {
+        private final long from;
+        private final long to;
+
+        SimulationTask(long from, long to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected SimulationReport compute() {
+            if (to - from <= GAMES_PER_TASK) return playRange(from, to);
+            long mid = (from + to) >>> 1;
+            SimulationTask left = new SimulationTask(from, mid);
+            left.fork();
+            SimulationReport report = new SimulationTask(mid, to).compute();
+            report.merge(left.join());
+            return report;
+        }
+    }
+}
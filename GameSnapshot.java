@@ -0,0 +1,91 @@
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.TimeUnit;
+
+// Read-only view of a snapshot written by MemoryGame.writeSnapshot()
+// The getters read straight from the buffer, so a snapshot can be looked at (or served from a memory-mapped
+// file) without copying it. Only board() copies, with bulk copies, when a game is restored.
+// Layout, little endian: a 48 byte header, the symbols as ints, the flipped, seen and matched bitsets as
+// longs, then the positions of the tiles flipped up this turn
+class GameSnapshot {
+    static final int MAGIC = 0x4d475353; // "MGSS"
+    static final int VERSION = 1;
+    static final int MAGIC_OFFSET = 0;
+    static final int VERSION_OFFSET = 4;
+    static final int TILES_OFFSET = 8;
+    static final int SCORE_OFFSET = 12;
+    static final int MATCHES_OFFSET = 16;
+    static final int FLIPS_OFFSET = 20;
+    static final int FACE_UP_OFFSET = 24;
+    static final int FLAGS_OFFSET = 28;
+    static final int SEED_OFFSET = 32;
+    static final int ELAPSED_OFFSET = 40; // Nanoseconds of the countdown used up, -1 if it never started
+    static final int HEADER_SIZE = 48;
+    static final int TIME_FINISHED = 1;
+    static final int COUNTING = 2;
+
+    private final ByteBuffer buffer;
+    private final int words;
+
+    // Wraps the bytes from the buffer's position on. The buffer itself is not changed
+    public GameSnapshot(ByteBuffer buffer) {
+        this.buffer = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+        if (this.buffer.remaining() < HEADER_SIZE || this.buffer.getInt(MAGIC_OFFSET) != MAGIC) {
+            throw new IllegalArgumentException("Not a game snapshot");
+        }
+        if (this.buffer.getInt(VERSION_OFFSET) != VERSION) {
+            throw new IllegalArgumentException("Unsupported snapshot version " + this.buffer.getInt(VERSION_OFFSET));
+        }
+        // A truncated or corrupt file must fail here with a clear message, not later with an index out of bounds
+        int tiles = getTileCount();
+        if (tiles < 0 || (tiles & 1) != 0 || tiles > (this.buffer.remaining() - HEADER_SIZE) / 4) {
+            throw new IllegalArgumentException("Snapshot has a bad tile count " + tiles);
+        }
+        words = (tiles + 63) >>> 6;
+        int faceUpCount = getFaceUpCount();
+        if (faceUpCount < 0 || faceUpCount > Math.min(2, tiles)) {
+            throw new IllegalArgumentException("Snapshot has a bad face up count " + faceUpCount);
+        }
+        if (this.buffer.remaining() < faceUpOffsetLong() + faceUpCount * 4L) {
+            throw new IllegalArgumentException("Snapshot is truncated");
+        }
+        for (int i = 0; i < faceUpCount; i++) {
+            if (getFaceUp(i) < 0 || getFaceUp(i) >= tiles) {
+                throw new IllegalArgumentException("Snapshot has a face up tile " + getFaceUp(i) + " off the board");
+            }
+        }
+    }
+
+    // Bytes the snapshot takes in the buffer
+    public int size() { return faceUpOffset() + getFaceUpCount() * 4; }
+
+    public int getTileCount() { return buffer.getInt(TILES_OFFSET); }
+    public int getScore() { return buffer.getInt(SCORE_OFFSET); }
+    public int getMatches() { return buffer.getInt(MATCHES_OFFSET); }
+    public int getFlips() { return buffer.getInt(FLIPS_OFFSET); }
+    public int getFaceUpCount() { return buffer.getInt(FACE_UP_OFFSET); }
+    public int getFaceUp(int i) { return buffer.getInt(faceUpOffset() + i * 4); }
+    public long getSeed() { return buffer.getLong(SEED_OFFSET); }
+    public long getElapsedNanos() { return buffer.getLong(ELAPSED_OFFSET); }
+    public int getSeconds() { return (int) TimeUnit.NANOSECONDS.toSeconds(Math.max(getElapsedNanos(), 0)); }
+    public boolean isTimeFinished() { return (buffer.getInt(FLAGS_OFFSET) & TIME_FINISHED) != 0; }
+    public boolean isCounting() { return (buffer.getInt(FLAGS_OFFSET) & COUNTING) != 0; }
+
+    public int symbolAt(int position) { return buffer.getInt(HEADER_SIZE + position * 4); }
+    public boolean isFlipped(int position) { return bit(0, position); }
+    public boolean isSeen(int position) { return bit(1, position); }
+    public boolean isMatched(int position) { return bit(2, position); }
+
+    // Copies the board out of the snapshot. Symbols that do not make pairs fail with an IllegalArgumentException
+    public Board board() { return Board.read(buffer, HEADER_SIZE, getTileCount()); }
+
+    private boolean bit(int bitset, int position) {
+        int at = HEADER_SIZE + getTileCount() * 4 + (bitset * words + (position >>> 6)) * 8;
+        return (buffer.getLong(at) & (1L << position)) != 0;
+    }
+
+    // Worked out in longs first, so a corrupt tile count can not overflow it
+    private long faceUpOffsetLong() { return HEADER_SIZE + getTileCount() * 4L + words * 8L * 3; }
+
+    private int faceUpOffset() { return (int) faceUpOffsetLong(); }
+}
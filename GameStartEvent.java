@@ -0,0 +1,15 @@
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("memorygame.GameStart")
+@Label("Game Start")
+@Category("Memory Game")
+class GameStartEvent extends Event {
+    @Label("Pairs")
+    int pairs;
+
+    @Label("Seed")
+    long seed;
+}
@@ -0,0 +1,171 @@
+import javax.swing.*;
+import java.awt.*;
+
+// Controller for the GUI view
+// Kept apart from GameController, so terminal play never loads a Swing or AWT class.
+// Messages and the leaderboard are shared with the terminal through the GameController
+class GuiController {
+    private static final int FLIP_BACK_DELAY = 700; // Milliseconds a missed pair stays face up in the GUI
+
+    private final MemoryGame memory;
+    private final GameController results;
+    private GameGUI gui; // Instance of the second view class
+    private int firstIndex = -1;
+    private int secondIndex = -1;
+    private boolean processingTurn = false;
+    private javax.swing.Timer flipBackTimer; // Made once and restarted for every missed turn
+
+    public GuiController(MemoryGame memory, GameController results) {
+        this.memory = memory;
+        this.results = results;
+    }
+
+    // If the user chooses the GUI option this executes
+    public void playGUI() {
+        SwingUtilities.invokeLater(() -> {
+            memory.initializeTiles(6); 
+            gui = new GameGUI(memory, this);
+            flipBackTimer = new javax.swing.Timer(FLIP_BACK_DELAY, e -> flipBack());
+            flipBackTimer.setRepeats(false);
+            gui.refreshBoard();            // ensure the board reflects the tiles at start
+            gui.setVisible(true);
+            memory.addGameListener(new GuiUpdater()); // the model tells the GUI what changed
+            memory.startTimer();           // start the model timer
+        });
+    }
+
+    // Updates the GUI from the model's events instead of polling it
+    // Events from the timer wheel thread are handed over to the Swing thread. Events from a click are
+    // already on it and update the GUI directly, without making a Runnable
+    private final class GuiUpdater implements GameListener {
+        @Override
+        public void tileFlipped(int position, boolean faceUp) {
+            if (SwingUtilities.isEventDispatchThread()) {
+                gui.refreshTile(position);
+            } else {
+                SwingUtilities.invokeLater(() -> gui.refreshTile(position));
+            }
+        }
+
+        @Override
+        public void matchMade(int first, int second) {
+            if (SwingUtilities.isEventDispatchThread()) {
+                gui.refreshTile(first);
+                gui.refreshTile(second);
+            } else {
+                SwingUtilities.invokeLater(() -> matchMade(first, second));
+            }
+        }
+
+        @Override
+        public void scoreChanged(int score) {
+            if (SwingUtilities.isEventDispatchThread()) {
+                gui.showScore(score);
+            } else {
+                SwingUtilities.invokeLater(() -> gui.showScore(score));
+            }
+        }
+
+        @Override
+        public void tick(int seconds) { onSwingThread(() -> gui.showTime(seconds)); }
+
+        @Override
+        public boolean wantsTicks() { return true; } // The window shows the time
+
+        @Override
+        public void gameOver(MemoryGame.GameOverReason reason) { onSwingThread(() -> showGameOver(reason)); }
+
+        @Override
+        public void boardDealt() { onSwingThread(gui::refreshBoard); }
+    }
+
+    private static void onSwingThread(Runnable update) {
+        if (SwingUtilities.isEventDispatchThread()) {
+            update.run();
+        } else {
+            SwingUtilities.invokeLater(update);
+        }
+    }
+
+    private void showGameOver(MemoryGame.GameOverReason reason) {
+        gui.showTime(memory.getSeconds());
+        gui.setBoardEnabled(false);
+        String rank = reason == MemoryGame.GameOverReason.ENDED ? null : results.recordResult();
+        if (reason == MemoryGame.GameOverReason.ALL_MATCHED) {
+            gui.messageLabel.setText("You found all the matches!");
+            JOptionPane.showMessageDialog(gui, "Congratulations!\nFinal score: " + memory.getScore() 
+                + "\nTime: " + memory.getSeconds() + " seconds" + (rank == null ? "" : "\n" + rank + "\n\n" + results.topResults()));
+        } else if (reason == MemoryGame.GameOverReason.TIME_UP) {
+            gui.messageLabel.setText(rank == null ? GameController.TIME_UP : GameController.TIME_UP + " " + rank);
+        }
+    }
+
+    // Handles the tile flipping in the GUI
+    public void tileTurn(int index) {
+        if (processingTurn || memory.timeIsFinished()) return;
+        
+        // The model flips the tile and scores the turn after the second one in one step.
+        // The tile is redrawn by the tileFlipped event
+        MemoryGame.FlipResult result = memory.flip(index);
+        if (result == MemoryGame.FlipResult.REJECTED) {
+            gui.messageLabel.setText("Tile already flipped.");
+            return;
+        }
+        
+        if (firstIndex == -1) {
+            firstIndex = index;
+        } else if (secondIndex == -1) {
+            secondIndex = index;
+            processingTurn = true;
+            evaluateMatch(result);
+        }
+    }
+
+    // Shows the result of a turn in the GUI after two tiles
+    private void evaluateMatch(MemoryGame.FlipResult result) {
+        // Handles if the tiles match
+        if (result == MemoryGame.FlipResult.MATCH) {
+            gui.messageLabel.setText(GameController.MATCH_FOUND); // Calls the GUI for the output
+            resetSelection();
+            
+            // Handles if user finds all the matches. The gameOver event shows the result
+            if (memory.allMatched()) {
+                memory.endGame();
+            } else {
+                processingTurn = false;
+            }
+        } else { // Handles if the tiles do not match
+            if (result == MemoryGame.FlipResult.PENALTY) {
+                gui.messageLabel.setText("No match. You saw this card before! (-2 Points)");
+            } else {
+                gui.messageLabel.setText("No match. Next turn.");
+            }
+
+            flipBackTimer.restart();
+        }
+    }
+
+    // Runs when the flip back timer fires after a missed turn
+    private void flipBack() {
+        memory.resetFlippedTiles(); // only the two tiles flipped back are redrawn
+        resetSelection();
+        processingTurn = false;
+    }
+
+    private void resetSelection() {
+        firstIndex = -1;
+        secondIndex = -1;
+    }
+
+    // Restarts game by resetting variables. Allows user to know by messages
+    public void restartGame() {
+        flipBackTimer.stop(); // a pending flip back belongs to the old game
+        processingTurn = false;
+        firstIndex = -1;
+        secondIndex = -1;
+        memory.restartGame(); // the board and score are redrawn by the model's events
+        gui.setBoardEnabled(true);
+        gui.showTime(0);
+        gui.messageLabel.setText("New game");
+    }
+}
@@ -0,0 +1,138 @@
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Checks for the hint index and the expected score solver
+// A KnowledgeIndex started on a game that is already under way, attached to it or restored from a snapshot,
+// must know the cards that were seen before it. Then games are played by following the hints only: they must
+// never lose points, and their average number of turns must come out where the solver expects it.
+// Last it times hint() on a big board. Exits with status 1 if a check fails.
+//
+// Run with:
+//   javac -d out *.java
+//   java -cp out HintCheck [games per board size]
+public class HintCheck {
+    private final List<String> failures = new ArrayList<>();
+
+    public static void main(String[] args) {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        HintCheck check = new HintCheck();
+        check.halfPlayed();
+        for (int pairs : new int[] {6, 50, 300}) check.followHints(pairs, pairs < 300 ? games : games / 10);
+        check.hintTime();
+        if (!check.failures.isEmpty()) {
+            System.out.println("Failed: " + check.failures);
+            System.exit(1);
+        }
+        System.out.println("All hint checks passed");
+    }
+
+    private static MemoryGame newGame() {
+        return new MemoryGame(TimerWheel.manual(new ManualClock(), 1, TimeUnit.SECONDS, 1));
+    }
+
+    private void check(boolean ok, String what) {
+        if (!ok) failures.add(what);
+    }
+
+    // Sees both cards of one pair and one card of two others, then starts an index on the game as it is
+    // and on a copy restored from its snapshot
+    private void halfPlayed() {
+        MemoryGame game = newGame();
+        game.initializeTiles(6, 42);
+        Board board = game.getBoard();
+        int first = 0;
+        int partner = board.partnerOf(first);
+        int other = next(board, -1, first, partner);
+        int another = next(board, other, first, partner, board.partnerOf(other));
+        game.startTimer();
+        game.flip(first);
+        game.flip(other);
+        game.resetFlippedTiles();
+        game.flip(partner);
+        game.flip(another);
+        game.resetFlippedTiles();
+
+        ByteBuffer snapshot = game.snapshot();
+        MemoryGame restored = newGame();
+        restored.restoreSnapshot(new GameSnapshot(snapshot));
+        checkHalfPlayed("attached", game, first, partner, other);
+        checkHalfPlayed("restored", restored, first, partner, other);
+    }
+
+    private void checkHalfPlayed(String how, MemoryGame game, int first, int partner, int other) {
+        KnowledgeIndex index = KnowledgeIndex.attach(game);
+        check(index.knownPairCount() == 1, how + ": one pair known, got " + index.knownPairCount());
+        check(index.knownSingleCount() == 2, how + ": two single cards known, got " + index.knownSingleCount());
+        check(index.unknownCount() == game.getBoard().size() - 4, how + ": unknown count " + index.unknownCount());
+        check(index.knownPartnerOf(first) == partner, how + ": partner of a seen pair");
+        int hint = index.hint();
+        check(hint == first || hint == partner, how + ": hint at the start of a turn should be the known pair, got " + hint);
+        game.flip(other);
+        check(index.hint() != other && !index.isKnown(index.hint()), how + ": with an unpaired card up the hint is a new card");
+        game.resetFlippedTiles();
+        game.flip(first);
+        check(index.hint() == partner, how + ": with half of the known pair up the hint is its partner");
+        check(game.flip(index.hint()) == MemoryGame.FlipResult.MATCH, how + ": following the hint matches");
+        check(index.knownPairCount() == 0 && index.knownSingleCount() == 2, how + ": the matched pair leaves the index");
+    }
+
+    // The first position that is none of the excluded ones
+    private static int next(Board board, int... excluded) {
+        for (int i = 0; i < board.size(); i++) {
+            boolean free = true;
+            for (int position : excluded) free &= position != i;
+            if (free) return i;
+        }
+        throw new IllegalStateException("Board too small");
+    }
+
+    private void followHints(int pairs, int games) {
+        long turns = 0;
+        long penalties = 0;
+        for (int g = 0; g < games; g++) {
+            MemoryGame game = newGame();
+            game.initializeTiles(pairs, g);
+            game.startTimer();
+            KnowledgeIndex index = KnowledgeIndex.attach(game);
+            while (!game.allMatched()) {
+                turns++;
+                game.flip(index.hint());
+                MemoryGame.FlipResult result = game.flip(index.hint());
+                if (result == MemoryGame.FlipResult.PENALTY) penalties++;
+                if (result != MemoryGame.FlipResult.MATCH) game.resetFlippedTiles();
+            }
+            check(game.getScore() == 10 * pairs, "pairs=" + pairs + " game " + g + " scored " + game.getScore());
+        }
+        ExpectedScoreSolver.Expectation expected = new ExpectedScoreSolver().solve(pairs, 0);
+        double average = (double) turns / games;
+        System.out.printf("pairs=%-4d following hints: %.2f turns, %d penalties; solver: %s%n",
+            pairs, average, penalties, expected);
+        check(penalties == 0, "pairs=" + pairs + " hints cost " + penalties + " penalties");
+        // Games are random, so the average only has to be close: well within 2% at these game counts
+        check(Math.abs(average - expected.getTurns()) < 0.02 * expected.getTurns(),
+            "pairs=" + pairs + " average turns " + average + " expected " + expected.getTurns());
+    }
+
+    private void hintTime() {
+        MemoryGame game = newGame();
+        game.initializeTiles(50_000, 1);
+        game.startTimer();
+        KnowledgeIndex index = KnowledgeIndex.attach(game);
+        for (int i = 0; i < 20_000; i++) {
+            game.flip(2 * i);
+            if (game.flip(2 * i + 1) != MemoryGame.FlipResult.MATCH) game.resetFlippedTiles();
+        }
+        long sink = 0;
+        double nanos = 0;
+        for (int round = 0; round < 5; round++) {
+            int calls = 10_000_000;
+            long start = System.nanoTime();
+            for (int i = 0; i < calls; i++) sink += index.hint();
+            nanos = (double) (System.nanoTime() - start) / calls;
+        }
+        System.out.printf("hint(): %.1f ns on a board of %d tiles (%d)%n", nanos, game.getBoard().size(), sink & 1);
+        check(nanos < 1000, "hint() took " + nanos + " ns");
+    }
+}
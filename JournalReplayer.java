@@ -0,0 +1,92 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+// Rebuilds games from a MoveJournal
+// Each game is dealt again from its seed and every move is played through flip() on a manual clock that is
+// moved to the recorded game time, so the board, score, matches and seconds come out as they were.
+// A flip whose outcome is not the recorded one means the journal and the rules disagree, and the replay
+// stops with an IllegalStateException
+class JournalReplayer implements MoveJournal.Visitor {
+    private final long onlySession; // -1 replays every session
+    private final Map<Long, Replay> sessions = new HashMap<>();
+    private long lastId = -1; // Moves of one session usually come in a row, so the last one is cached
+    private Replay last;
+
+    private JournalReplayer(long onlySession) {
+        this.onlySession = onlySession;
+    }
+
+    // The state one session was in at the end of the journal, or null if it is not in the journal
+    public static MemoryGame replay(Path directory, long sessionId) throws IOException {
+        JournalReplayer replayer = new JournalReplayer(sessionId);
+        MoveJournal.scan(directory, replayer);
+        Replay replay = replayer.sessions.get(sessionId);
+        return replay == null ? null : replay.game;
+    }
+
+    // Every session in the journal, for re-scoring old games in bulk
+    public static Map<Long, MemoryGame> replayAll(Path directory) throws IOException {
+        JournalReplayer replayer = new JournalReplayer(-1);
+        MoveJournal.scan(directory, replayer);
+        Map<Long, MemoryGame> games = new TreeMap<>();
+        for (Map.Entry<Long, Replay> entry : replayer.sessions.entrySet()) {
+            games.put(entry.getKey(), entry.getValue().game);
+        }
+        return games;
+    }
+
+    // One session being replayed. Its clock counts game time from the session's first record
+    private static final class Replay {
+        final ManualClock clock = new ManualClock();
+        final TimerWheel wheel = TimerWheel.manual(clock, 1, TimeUnit.SECONDS, 1);
+        MemoryGame game;
+        long startedAt;
+
+        void moveTo(long gameNanos) {
+            long behind = startedAt + gameNanos - clock.nanoTime();
+            if (behind > 0) clock.advance(behind, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public void record(long sessionId, long wallMillis, int type, int tile, int outcome, long value) {
+        if (onlySession >= 0 && sessionId != onlySession) return;
+        Replay replay = sessionId == lastId ? last : sessions.get(sessionId);
+        if (replay == null) {
+            replay = new Replay();
+            sessions.put(sessionId, replay);
+        }
+        lastId = sessionId;
+        last = replay;
+
+        if (type == MoveJournal.DEAL) {
+            // A restart deals a new board, so it gets a new game just like the player did
+            replay.game = new MemoryGame(replay.wheel);
+            replay.game.initializeTiles(tile, value);
+            return;
+        }
+        MemoryGame game = replay.game;
+        if (game == null) throw new IllegalStateException("Session " + sessionId + " has moves before its deal");
+        if (type == MoveJournal.START) {
+            game.startTimer();
+            replay.startedAt = replay.clock.nanoTime();
+            return;
+        }
+        replay.moveTo(value);
+        if (type == MoveJournal.FLIP) {
+            MemoryGame.FlipResult result = game.flip(tile);
+            if (result.ordinal() != outcome) {
+                throw new IllegalStateException("Session " + sessionId + ": flipping tile " + tile + " gave "
+                    + result + " but the journal recorded " + MemoryGame.FlipResult.values()[outcome]);
+            }
+        } else if (type == MoveJournal.RESET) {
+            game.resetFlippedTiles();
+        } else if (type == MoveJournal.END) {
+            game.endGame();
+        }
+    }
+}
@@ -0,0 +1,149 @@
+import java.util.Arrays;
+
+// What has been revealed on a game's board, kept up to date from the game's events
+// Every position is either unknown (never turned over), known or matched, and every symbol knows which of its
+// positions have been seen. Unknown positions and symbols with both positions seen are kept in swap-remove
+// sets, so each flip updates the index in O(1) and every question, including hint(), is answered in O(1).
+// It remembers everything the board has shown, like a player with a perfect memory
+class KnowledgeIndex implements GameListener {
+    private final MemoryGame game;
+    private int[] unknown = new int[0];
+    private int[] unknownSlot = new int[0]; // Slot in unknown, -1 once the position is known
+    private int unknownCount;
+    // Seen positions of each symbol that is not matched yet, -1 when not seen
+    private int[] firstSeen = new int[0];
+    private int[] secondSeen = new int[0];
+    private int[] knownPairs = new int[0]; // Symbols with both positions seen
+    private int[] knownPairSlot = new int[0];
+    private int knownPairCount;
+    private int knownSingles; // Symbols with one position seen
+    private int faceUpCount; // Tiles up this turn that are not matched
+    private int faceUpTile = -1; // The tile up this turn when there is exactly one
+
+    private KnowledgeIndex(MemoryGame game) {
+        this.game = game;
+    }
+
+    // Starts an index of what the game has revealed so far. It stays up to date until detach()
+    public static KnowledgeIndex attach(MemoryGame game) {
+        KnowledgeIndex index = new KnowledgeIndex(game);
+        synchronized (game) {
+            index.boardDealt();
+            game.addGameListener(index);
+        }
+        return index;
+    }
+
+    public void detach() { game.removeGameListener(this); }
+
+    // Rebuilds the index from the board: every new deal, and a restored snapshot, which may have seen tiles
+    @Override
+    public void boardDealt() {
+        Board board = game.getBoard();
+        int tiles = board.size();
+        unknown = new int[tiles];
+        unknownSlot = new int[tiles];
+        unknownCount = 0;
+        firstSeen = new int[tiles / 2];
+        secondSeen = new int[tiles / 2];
+        Arrays.fill(firstSeen, -1);
+        Arrays.fill(secondSeen, -1);
+        knownPairs = new int[tiles / 2];
+        knownPairSlot = new int[tiles / 2];
+        Arrays.fill(knownPairSlot, -1);
+        knownPairCount = 0;
+        knownSingles = 0;
+        faceUpCount = 0;
+        faceUpTile = -1;
+        // Every unmatched tile starts unknown, and the seen ones go through see() like a flip would
+        for (int i = 0; i < tiles; i++) {
+            unknownSlot[i] = -1;
+            if (board.isMatched(i)) continue;
+            unknownSlot[i] = unknownCount;
+            unknown[unknownCount++] = i;
+            if (board.isSeen(i)) see(i, board.symbolAt(i));
+            if (board.isFlipped(i)) tileFlipped(i, true);
+        }
+    }
+
+    @Override
+    public void tileFlipped(int position, boolean faceUp) {
+        if (faceUp) {
+            see(position, game.getBoard().symbolAt(position));
+            faceUpTile = ++faceUpCount == 1 ? position : -1;
+        } else {
+            faceUpCount--;
+            faceUpTile = -1;
+        }
+    }
+
+    @Override
+    public void matchMade(int first, int second) {
+        int symbol = game.getBoard().symbolAt(first);
+        removeKnownPair(symbol);
+        firstSeen[symbol] = -1;
+        secondSeen[symbol] = -1;
+        faceUpCount -= 2;
+        faceUpTile = -1;
+    }
+
+    private void see(int position, int symbol) {
+        int slot = unknownSlot[position];
+        if (slot < 0) return; // Already known
+        int last = unknown[--unknownCount];
+        unknown[slot] = last;
+        unknownSlot[last] = slot;
+        unknownSlot[position] = -1;
+        if (firstSeen[symbol] == -1) {
+            firstSeen[symbol] = position;
+            knownSingles++;
+        } else {
+            secondSeen[symbol] = position;
+            knownSingles--;
+            knownPairSlot[symbol] = knownPairCount;
+            knownPairs[knownPairCount++] = symbol;
+        }
+    }
+
+    private void removeKnownPair(int symbol) {
+        int slot = knownPairSlot[symbol];
+        if (slot < 0) return;
+        int last = knownPairs[--knownPairCount];
+        knownPairs[slot] = last;
+        knownPairSlot[last] = slot;
+        knownPairSlot[symbol] = -1;
+    }
+
+    // True once the tile has been turned over, matched or not
+    public boolean isKnown(int position) { return unknownSlot[position] < 0; }
+
+    // The other seen position with the same symbol, or -1 if it has not been seen or the pair is matched
+    public int knownPartnerOf(int position) {
+        int symbol = game.getBoard().symbolAt(position);
+        if (firstSeen[symbol] == position) return secondSeen[symbol];
+        return secondSeen[symbol] == position ? firstSeen[symbol] : -1;
+    }
+
+    // Tiles never turned over
+    public int unknownCount() { return unknownCount; }
+
+    // Unmatched symbols whose two positions have both been seen
+    public int knownPairCount() { return knownPairCount; }
+
+    // Unmatched symbols with exactly one position seen
+    public int knownSingleCount() { return knownSingles; }
+
+    // The best tile to flip next, or -1 when there is nothing to flip.
+    // With a tile up this turn that is its partner if it was seen, and otherwise a tile never turned over.
+    // At the start of a turn it is half of a pair that was seen, and otherwise a tile never turned over.
+    // Never flipping a seen card unless it makes a match means a turn never costs points
+    public int hint() {
+        if (faceUpCount == 1 && faceUpTile >= 0) {
+            int partner = knownPartnerOf(faceUpTile);
+            if (partner >= 0) return partner;
+        } else if (faceUpCount == 0 && knownPairCount > 0) {
+            return firstSeen[knownPairs[knownPairCount - 1]];
+        }
+        return faceUpCount < 2 && unknownCount > 0 ? unknown[unknownCount - 1] : -1;
+    }
+}
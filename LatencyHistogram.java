@@ -0,0 +1,98 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+// Histogram of nanosecond latencies with 8 buckets per power of two, so percentiles are within 12.5%
+// Every bucket is its own atomic counter and recording never allocates or locks
+class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    private final AtomicLongArray buckets = new AtomicLongArray((64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS);
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    public void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        buckets.incrementAndGet(bucket(nanos));
+        sum.add(nanos);
+        max.accumulate(nanos);
+    }
+
+    // Adds every value recorded in the other histogram to this one
+    public void merge(LatencyHistogram other) {
+        for (int i = 0; i < buckets.length(); i++) {
+            long count = other.buckets.get(i);
+            if (count != 0) buckets.addAndGet(i, count);
+        }
+        sum.add(other.sum.sum());
+        max.accumulate(other.max.get());
+    }
+
+    private static int bucket(long value) {
+        if (value < SUB_BUCKETS) return (int) value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int mantissa = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + mantissa;
+    }
+
+    // Smallest value that lands in the bucket
+    private static long lowerBound(int bucket) {
+        if (bucket < SUB_BUCKETS) return bucket;
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        return (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << (exponent - SUB_BUCKET_BITS);
+    }
+
+    public Summary summary() {
+        long[] counts = new long[buckets.length()];
+        long count = 0;
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = buckets.get(i);
+            count += counts[i];
+        }
+        return new Summary(count, count == 0 ? 0 : sum.sum() / count, percentile(counts, count, 50),
+            percentile(counts, count, 90), percentile(counts, count, 99), max.get());
+    }
+
+    private static long percentile(long[] counts, long count, double percent) {
+        long rank = (long) Math.ceil(count * percent / 100.0);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank && seen > 0) return lowerBound(i);
+        }
+        return 0;
+    }
+
+    // Percentiles are the lower edge of their bucket
+    static final class Summary {
+        private final long count;
+        private final long mean;
+        private final long p50;
+        private final long p90;
+        private final long p99;
+        private final long max;
+
+        Summary(long count, long mean, long p50, long p90, long p99, long max) {
+            this.count = count;
+            this.mean = mean;
+            this.p50 = p50;
+            this.p90 = p90;
+            this.p99 = p99;
+            this.max = max;
+        }
+
+        public long getCount() { return count; }
+        public long getMean() { return mean; }
+        public long getP50() { return p50; }
+        public long getP90() { return p90; }
+        public long getP99() { return p99; }
+        public long getMax() { return max; }
+
+        @Override
+        public String toString() {
+            return String.format("count %d, mean %d ns, p50 %d ns, p90 %d ns, p99 %d ns, max %d ns",
+                count, mean, p50, p90, p99, max);
+        }
+    }
+}
@@ -0,0 +1,268 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Leaderboard of finished games, kept per board size
+// Every result is appended to a memory-mapped file, and the rankings are rebuilt from it when it is opened.
+// Each board size keeps its best results in a bounded heap, and a Fenwick tree of how many games ended on
+// each score, so the rank of any score is found in O(log n) however many games were played
+class Leaderboard {
+    private static final int MAGIC = 0x4d474c42; // "MGLB"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    // A record is 24 bytes: finish time in millis, pairs, score, seconds and a marker written last
+    private static final int RECORD_SIZE = 24;
+    private static final int CHUNK_SIZE = RECORD_SIZE << 16;
+
+    // Best first: highest score, then fastest, then whoever finished first
+    static final Comparator<Entry> BEST_FIRST = Comparator.comparingInt((Entry entry) -> -entry.score)
+        .thenComparingInt(entry -> entry.seconds)
+        .thenComparingLong(entry -> entry.finishedAt);
+
+    // One finished game
+    static final class Entry {
+        private final int score;
+        private final int seconds;
+        private final long finishedAt;
+
+        Entry(int score, int seconds, long finishedAt) {
+            this.score = score;
+            this.seconds = seconds;
+            this.finishedAt = finishedAt;
+        }
+
+        public int getScore() { return score; }
+        public int getSeconds() { return seconds; }
+        public long getFinishedAt() { return finishedAt; }
+
+        @Override
+        public String toString() { return score + " points in " + seconds + " seconds"; }
+    }
+
+    private final int topK;
+    private final ConcurrentHashMap<Integer, Ranking> rankings = new ConcurrentHashMap<>();
+    private FileChannel channel; // Null for a leaderboard that is only kept in memory
+    private MappedByteBuffer chunk;
+    private long chunkStart;
+    private int position; // Offset of the next record in the chunk
+
+    // A leaderboard that is only kept in memory
+    public Leaderboard(int topK) {
+        if (topK <= 0) throw new IllegalArgumentException("topK must be positive");
+        this.topK = topK;
+    }
+
+    // Opens the leaderboard file, creating it if needed, and ranks every result already in it
+    public static Leaderboard open(Path file, int topK) throws IOException {
+        Leaderboard leaderboard = new Leaderboard(topK);
+        FileChannel channel = FileChannel.open(file,
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+        if (header.getInt(0) == 0) {
+            header.putInt(0, MAGIC);
+            header.putInt(4, VERSION);
+        } else if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+            channel.close();
+            throw new IOException("Not a leaderboard file: " + file);
+        }
+        leaderboard.channel = channel;
+        leaderboard.load();
+        return leaderboard;
+    }
+
+    // Reads the records chunk by chunk and leaves the last chunk mapped for appending
+    private void load() throws IOException {
+        chunkStart = HEADER_SIZE;
+        mapChunk();
+        while (true) {
+            ByteBuffer buffer = chunk;
+            while (position + RECORD_SIZE <= CHUNK_SIZE && buffer.getInt(position + 20) != 0) {
+                int pairs = buffer.getInt(position + 8);
+                ranking(pairs).add(new Entry(buffer.getInt(position + 12), buffer.getInt(position + 16),
+                    buffer.getLong(position)));
+                position += RECORD_SIZE;
+            }
+            if (position + RECORD_SIZE <= CHUNK_SIZE || chunkStart + CHUNK_SIZE >= channel.size()) return;
+            chunkStart += CHUNK_SIZE;
+            mapChunk();
+        }
+    }
+
+    private void mapChunk() throws IOException {
+        chunk = channel.map(FileChannel.MapMode.READ_WRITE, chunkStart, CHUNK_SIZE);
+        position = 0;
+    }
+
+    // Records a finished game and returns its rank among every game on a board of that size
+    public long record(int pairs, int score, int seconds) {
+        long finishedAt = System.currentTimeMillis();
+        if (channel != null) append(pairs, score, seconds, finishedAt);
+        return ranking(pairs).add(new Entry(score, seconds, finishedAt));
+    }
+
+    private synchronized void append(int pairs, int score, int seconds, long finishedAt) {
+        if (position + RECORD_SIZE > CHUNK_SIZE) {
+            chunkStart += CHUNK_SIZE;
+            try {
+                mapChunk();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not grow the leaderboard file", e);
+            }
+        }
+        int at = position;
+        chunk.putLong(at, finishedAt);
+        chunk.putInt(at + 8, pairs);
+        chunk.putInt(at + 12, score);
+        chunk.putInt(at + 16, seconds);
+        chunk.putInt(at + 20, 1); // written last, so a half written record is never loaded
+        position = at + RECORD_SIZE;
+    }
+
+    // Rank a game with this score would have: 1 plus the number of games that scored higher
+    public long rank(int pairs, int score) {
+        Ranking ranking = rankings.get(pairs);
+        return ranking == null ? 1 : ranking.rank(score);
+    }
+
+    // Number of games recorded for a board size
+    public long games(int pairs) {
+        Ranking ranking = rankings.get(pairs);
+        return ranking == null ? 0 : ranking.games();
+    }
+
+    // The best results for a board size, best first
+    public List<Entry> top(int pairs) {
+        Ranking ranking = rankings.get(pairs);
+        return ranking == null ? new ArrayList<>() : ranking.top();
+    }
+
+    // Records the game every time it ends with all the matches found or the time up.
+    // Games the player quit are not ranked
+    public void track(MemoryGame game) {
+        game.addGameListener(new GameListener() {
+            @Override
+            public void gameOver(MemoryGame.GameOverReason reason) {
+                if (reason != MemoryGame.GameOverReason.ENDED) {
+                    record(game.getBoard().pairs(), game.getScore(), game.getSeconds());
+                }
+            }
+        });
+    }
+
+    // Writes the records appended so far to the disk
+    public synchronized void force() {
+        if (chunk != null) chunk.force();
+    }
+
+    public synchronized void close() throws IOException {
+        force();
+        if (channel != null) channel.close();
+        channel = null;
+        chunk = null;
+    }
+
+    private Ranking ranking(int pairs) {
+        return rankings.computeIfAbsent(pairs, p -> new Ranking(p, topK));
+    }
+
+    // The results for one board size
+    // Scores go from 10 points per pair down to -10 points per pair. Anything lower ranks last together.
+    // The Fenwick tree only spans the scores recorded so far and at least doubles when a score falls outside it,
+    // up to MAX_SPAN scores, so a board with millions of pairs costs no more than a small one. A score past the
+    // edge of a full tree ties with the edge
+    private static final class Ranking {
+        private static final int MAX_SPAN = 1 << 16;
+        private final int minScore;
+        private final int maxScore;
+        private long[] tree = new long[2]; // Fenwick tree of game counts, indexed by score - low + 1
+        private int low; // The lowest score the tree spans
+        private final PriorityQueue<Entry> best; // The worst of the best results is at the head
+        private final int topK;
+        private long games;
+
+        Ranking(int pairs, int topK) {
+            maxScore = 10 * pairs;
+            minScore = -10 * pairs;
+            best = new PriorityQueue<>(topK + 1, BEST_FIRST.reversed());
+            this.topK = topK;
+        }
+
+        synchronized long add(Entry entry) {
+            int score = clamp(entry.score);
+            if (games == 0) {
+                low = score;
+            } else {
+                span(score);
+            }
+            for (int i = index(score); i < tree.length; i += i & -i) tree[i]++;
+            games++;
+            if (best.size() < topK) {
+                best.add(entry);
+            } else if (BEST_FIRST.compare(entry, best.peek()) < 0) {
+                best.poll();
+                best.add(entry);
+            }
+            return rank(entry.score);
+        }
+
+        synchronized long rank(int score) {
+            long atOrBelow = 0;
+            for (int i = index(score); i > 0; i -= i & -i) atOrBelow += tree[i];
+            return games - atOrBelow + 1;
+        }
+
+        synchronized long games() { return games; }
+
+        synchronized List<Entry> top() {
+            List<Entry> top = new ArrayList<>(best);
+            top.sort(BEST_FIRST);
+            return top;
+        }
+
+        private int clamp(int score) {
+            return Math.max(minScore, Math.min(maxScore, score));
+        }
+
+        // 0 for a score below every game recorded, while the tree can still grow
+        private int index(int score) {
+            int index = Math.min(clamp(score) - low + 1, tree.length - 1);
+            return tree.length - 1 == MAX_SPAN ? Math.max(1, index) : index;
+        }
+
+        // Grows the tree towards a score outside it, to at least twice the scores it spans
+        private void span(int score) {
+            int high = low + tree.length - 2;
+            if (score >= low && score <= high) return;
+            if (tree.length - 1 == MAX_SPAN) return;
+            long length = Math.max(2L * (tree.length - 1), score < low ? (long) high - score + 1 : (long) score - low + 1);
+            length = Math.min(length, MAX_SPAN);
+            int newLow = low;
+            int newHigh = high;
+            if (score < low) {
+                newLow = (int) Math.max(minScore, high - length + 1);
+            } else {
+                newHigh = (int) Math.min(maxScore, low + length - 1);
+            }
+            long[] grown = new long[newHigh - newLow + 2];
+            long before = 0;
+            for (int i = 1; i < tree.length; i++) {
+                long atOrBelow = 0;
+                for (int j = i; j > 0; j -= j & -j) atOrBelow += tree[j];
+                long count = atOrBelow - before;
+                before = atOrBelow;
+                for (int j = i + low - newLow; j < grown.length && count != 0; j += j & -j) grown[j] += count;
+            }
+            tree = grown;
+            low = newLow;
+        }
+    }
+}
@@ -0,0 +1,209 @@
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// Load generator for the GameServer
+// Opens many connections from one selector thread, waits until every one of them has its board, then has
+// them all play turns at the same time. A turn is the time from sending a tile number to getting the
+// next prompt back, and the latencies are reported as percentiles.
+// With a think time each player waits that long before its next turn, like a person would. Without one
+// every player always has a turn in flight, which measures the server flat out.
+//
+// Run with:
+//   javac -d out *.java
+//   java -cp out Main server 7777
+//   java -cp out LoadClient [host] [port] [connections] [turns per connection] [think time ms]
+public class LoadClient {
+    // Every reply from the server ends with the prompt
+    private static final byte[] PROMPT_END = "restart: \n".getBytes(StandardCharsets.US_ASCII);
+    private static final int MAX_CONNECTING = 512;
+
+    // One simulated player
+    private static final class Player {
+        final SocketChannel channel;
+        final SplittableRandom random;
+        final ByteBuffer in = ByteBuffer.allocate(4096);
+        int matched; // How much of PROMPT_END has been read so far
+        int turns;
+        long sentAt = -1;
+        long dueAt; // When the next turn is sent, after thinking
+        boolean ready; // Got the first prompt
+        boolean done;
+
+        Player(SocketChannel channel, long seed) {
+            this.channel = channel;
+            this.random = new SplittableRandom(seed);
+        }
+    }
+
+    private final Selector selector;
+    private final Distribution latencies = new Distribution(10); // microseconds
+    private final int turnsPerPlayer;
+    private final int tiles;
+    private final long thinkNanos;
+    // Players thinking about their next turn, the one due first at the head
+    private final PriorityQueue<Player> thinking = new PriorityQueue<>(Comparator.comparingLong(player -> player.dueAt));
+    private int connecting;
+    private int ready;
+    private int finished;
+    private int closedByServer;
+    private boolean playing;
+
+    private LoadClient(int turnsPerPlayer, int tiles, long thinkMillis) throws IOException {
+        this.selector = Selector.open();
+        this.turnsPerPlayer = turnsPerPlayer;
+        this.tiles = tiles;
+        this.thinkNanos = TimeUnit.MILLISECONDS.toNanos(thinkMillis);
+    }
+
+    public static void main(String[] args) throws IOException {
+        String host = args.length > 0 ? args[0] : "localhost";
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : 7777;
+        int connections = args.length > 2 ? Integer.parseInt(args[2]) : 10_000;
+        int turns = args.length > 3 ? Integer.parseInt(args[3]) : 20;
+        long think = args.length > 4 ? Long.parseLong(args[4]) : 0;
+        new LoadClient(turns, 12, think).run(new InetSocketAddress(host, port), connections);
+    }
+
+    private void run(InetSocketAddress address, int connections) throws IOException {
+        long start = System.nanoTime();
+        Player[] players = new Player[connections];
+        int opened = 0;
+        while (ready + closedByServer < connections) {
+            // Only a limited number of connects are in flight, so the server's accept backlog never overflows
+            while (opened < connections && connecting < MAX_CONNECTING) {
+                SocketChannel channel = SocketChannel.open();
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                Player player = new Player(channel, opened);
+                players[opened++] = player;
+                channel.connect(address);
+                channel.register(selector, SelectionKey.OP_CONNECT, player);
+                connecting++;
+            }
+            poll();
+        }
+        long connected = System.nanoTime();
+        System.out.printf("%d connections open in %d ms%n", ready, TimeUnit.NANOSECONDS.toMillis(connected - start));
+
+        // The first turns are spread over one think time, so the players do not all send at once
+        playing = true;
+        long now = System.nanoTime();
+        for (int i = 0; i < connections; i++) {
+            Player player = players[i];
+            if (!player.ready || player.done) continue;
+            if (thinkNanos == 0) {
+                send(player);
+            } else {
+                player.dueAt = now + thinkNanos * i / connections;
+                thinking.add(player);
+            }
+        }
+        while (finished + closedByServer < connections) poll();
+        long end = System.nanoTime();
+
+        double seconds = (end - connected) / 1e9;
+        System.out.printf("%d turns in %.2f s, %.0f turns/s%n", latencies.getCount(), seconds,
+            latencies.getCount() / seconds);
+        System.out.println("Turn latency (us): " + latencies);
+        if (closedByServer > 0) System.out.println(closedByServer + " games were ended by the server");
+        for (Player player : players) player.channel.close();
+        selector.close();
+    }
+
+    private void poll() throws IOException {
+        long now = System.nanoTime();
+        while (!thinking.isEmpty() && thinking.peek().dueAt <= now) send(thinking.poll());
+        if (thinking.isEmpty()) {
+            selector.select();
+        } else {
+            selector.select(Math.max(1, TimeUnit.NANOSECONDS.toMillis(thinking.peek().dueAt - now)));
+        }
+        for (SelectionKey key : selector.selectedKeys()) {
+            Player player = (Player) key.attachment();
+            if (key.isConnectable()) {
+                player.channel.finishConnect();
+                connecting--;
+                key.interestOps(SelectionKey.OP_READ);
+            } else if (key.isReadable()) {
+                read(player, key);
+            }
+        }
+        selector.selectedKeys().clear();
+    }
+
+    private void read(Player player, SelectionKey key) throws IOException {
+        player.in.clear();
+        int read;
+        try {
+            read = player.channel.read(player.in);
+        } catch (IOException e) {
+            read = -1;
+        }
+        if (read < 0) {
+            // The game ended on the server: all matched or out of time
+            key.cancel();
+            if (!player.done) {
+                player.done = true;
+                closedByServer++;
+            }
+            return;
+        }
+        for (int i = 0; i < read; i++) {
+            byte b = player.in.get(i);
+            if (b == PROMPT_END[player.matched]) {
+                player.matched++;
+            } else {
+                player.matched = b == PROMPT_END[0] ? 1 : 0;
+            }
+            if (player.matched == PROMPT_END.length) {
+                player.matched = 0;
+                prompted(player);
+            }
+        }
+    }
+
+    private void prompted(Player player) throws IOException {
+        if (!player.ready) {
+            player.ready = true;
+            ready++;
+            if (playing) think(player);
+            return;
+        }
+        latencies.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - player.sentAt));
+        player.turns++;
+        think(player);
+    }
+
+    private void think(Player player) throws IOException {
+        if (thinkNanos == 0) {
+            send(player);
+        } else {
+            player.dueAt = System.nanoTime() + thinkNanos;
+            thinking.add(player);
+        }
+    }
+
+    private void send(Player player) throws IOException {
+        if (player.done) return;
+        String line;
+        if (player.turns == turnsPerPlayer) {
+            line = "q\n";
+            player.done = true;
+            finished++;
+        } else {
+            line = player.random.nextInt(tiles) + "\n";
+        }
+        player.sentAt = System.nanoTime();
+        player.channel.write(ByteBuffer.wrap(line.getBytes(StandardCharsets.US_ASCII)));
+    }
+}
@@ -0,0 +1,12 @@
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Clock that only moves when it is told to
+class ManualClock implements GameClock {
+    private final AtomicLong now = new AtomicLong();
+
+    @Override
+    public long nanoTime() { return now.get(); }
+
+    public void advance(long amount, TimeUnit unit) { now.addAndGet(unit.toNanos(amount)); }
+}
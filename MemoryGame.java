@@ -0,0 +1,481 @@
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Another method for the model
+// Contains the core game logic
+class MemoryGame {
+    // How a turn ended. PENALTY is a miss where one of the cards had been seen before
+    enum TurnOutcome { MATCH, MISS, PENALTY }
+
+    // Why a game ended. ENDED is a game stopped early, for example when the player quits
+    enum GameOverReason { ALL_MATCHED, TIME_UP, ENDED }
+
+    // What a call to flip() did. REJECTED flips change nothing
+    enum FlipResult { REJECTED, FIRST_TILE, MATCH, MISS, PENALTY }
+
+    // Turn state (the board, face up tiles and flags) only changes while holding the game's lock.
+    // The counters are atomics, so they can be read from any thread without locking
+    private volatile Board board;
+    private long seed; // Seed the current board was dealt from
+    private final List<Tile> tiles; // Read-only view of the board for the views
+    // Positions of the tiles flipped up during the current turn
+    private int[] faceUp = new int[2];
+    private int faceUpCount;
+    private final AtomicInteger matchesFound = new AtomicInteger();
+    private final AtomicInteger flipsRemaining = new AtomicInteger();
+    private final AtomicInteger playerScore = new AtomicInteger();
+    private final TimerWheel wheel; // Shared wheel that fires the expiry event
+    private final GameClock clock;
+    private TimerWheel.Timeout timer;
+    private int timerGeneration; // Bumped whenever the countdown is started or cancelled
+    // The time is worked out from these instead of counting seconds. -1 means not set
+    private long startNanos = -1;
+    private long deadlineNanos = -1;
+    private long stopNanos = -1;
+    static final int GAME_DURATION = 60; // Set the game duration in seconds
+    private final int gameDuration;
+    private volatile boolean timeFinished = false;
+    private boolean suspended; // Set once the game's snapshot is taken for suspending, every move is rejected after it
+    private TimerWheel.Timeout tickTimer; // Only scheduled while a listener wants ticks
+    private int tickNumber; // Bumped for every tick scheduled, so a tick that was replaced does nothing when it runs
+    private int tickListeners; // Listeners whose wantsTicks() is true
+    // Copied on every change, so firing an event never needs a lock or an iterator
+    private volatile GameListener[] listeners = new GameListener[0];
+    private MoveJournal journal; // Every deal, flip and end of the game is appended here when set
+    private long sessionId;
+
+    public MemoryGame() {
+        this(TimerWheel.shared());
+    }
+
+    // Makes a game whose countdown runs on the given wheel (used by GameHost)
+    // The game reads the time from the wheel's clock, so a manual wheel gives it virtual time
+    public MemoryGame(TimerWheel wheel) {
+        this.wheel = wheel;
+        this.clock = wheel.getClock();
+        board = new Board(new int[0]);
+        tiles = new AbstractList<Tile>() {
+            @Override
+            public Tile get(int index) { return getTileFromTiles(index); }
+
+            @Override
+            public int size() { return board.size(); }
+        };
+        flipsRemaining.set(2); // Set the number of allowed flips per turn
+        gameDuration = GAME_DURATION;
+    }
+    
+    // Initializes tiles in the output
+    // Symbols are int ids, so a board can have millions of pairs
+    public void initializeTiles(int pairs) {
+        initializeTiles(pairs, ThreadLocalRandom.current().nextLong());
+    }
+
+    // Deals the board from a seed. The same seed always gives the same layout
+    public synchronized void initializeTiles(int pairs, long seed) {
+        board = BoardGenerator.generate(pairs, seed); // ensure fresh start
+        this.seed = seed;
+        faceUpCount = 0;
+        if (journal != null) journal.append(sessionId, MoveJournal.DEAL, pairs, 0, seed);
+        for (GameListener listener : listeners) listener.boardDealt();
+    }
+
+    // A tile matches when the other tile with its symbol is face up too
+    public boolean checkForMatch(Tile tile) {
+        int position = tile.getPosition();
+        return board.isFlipped(position) && board.isFlipped(board.partnerOf(position));
+    }
+
+    // Gets the position of the other tile with the same symbol
+    public int partnerOf(int position) { return board.partnerOf(position); }
+
+    // Only the tiles flipped this turn are looked at, not the whole board
+    public synchronized void resetFlippedTiles() {
+        if (suspended) return;
+        record(MoveJournal.RESET, 0, 0, clock.nanoTime());
+        flipBack();
+    }
+
+    private void flipBack() {
+        for (int i = 0; i < faceUpCount; i++) {
+            // only flip back tiles that are NOT permanently matched
+            if (!board.isMatched(faceUp[i])) {
+                board.setFlipped(faceUp[i], false);
+                for (GameListener listener : listeners) listener.tileFlipped(faceUp[i], false);
+            }
+        }
+        faceUpCount = 0;
+        // reset flipsRemaining for next turn
+        flipsRemaining.set(2);
+    }
+
+    private void turnUp(int position) {
+        board.setFlipped(position, true);
+        if (faceUpCount == faceUp.length) faceUp = Arrays.copyOf(faceUp, faceUpCount * 2);
+        faceUp[faceUpCount++] = position;
+        for (GameListener listener : listeners) listener.tileFlipped(position, true);
+    }
+
+    // Flips a tile and, when it is the second tile of the turn, scores the turn, as one atomic step.
+    // Two flips racing on the same board can never both take a tile, count a match twice or lose a score.
+    // The flip is rejected if the tile is already up, the turn already has two tiles up or the game is over.
+    // After a MISS or PENALTY the caller flips the tiles back with resetFlippedTiles()
+    public synchronized FlipResult flip(int position) {
+        if (position < 0 || position >= board.size()) throw new IndexOutOfBoundsException("Tile " + position);
+        long started = GameMetrics.start();
+        long now = clock.nanoTime(); // the journal records the same time the flip was judged by
+        FlipResult result = flipAt(position, now);
+        record(MoveJournal.FLIP, position, result.ordinal(), now);
+        if (GameMetrics.ENABLED) GameMetrics.turn(position, result, started);
+        return result;
+    }
+
+    private FlipResult flipAt(int position, long now) {
+        if (suspended || isFinishedAt(now) || faceUpCount >= 2 || board.isFlipped(position)) return FlipResult.REJECTED;
+        turnUp(position);
+        updateFlips();
+        if (faceUpCount < 2) return FlipResult.FIRST_TILE;
+        switch (evaluateTurn()) {
+            case MATCH:
+                return FlipResult.MATCH;
+            case PENALTY:
+                return FlipResult.PENALTY;
+            default:
+                return FlipResult.MISS;
+        }
+    }
+
+    // Scores the turn once both tiles are face up. The same rules are used by both views and the simulator:
+    // a match is worth 10 points and stays face up, a miss costs 2 points if either card was seen before.
+    // A match also starts the next turn, after a miss the caller flips the tiles back with resetFlippedTiles().
+    // Only called from flip(), under the game's lock
+    private TurnOutcome evaluateTurn() {
+        if (faceUpCount != 2) throw new IllegalStateException("A turn needs two face up tiles, got " + faceUpCount);
+        int first = faceUp[0];
+        int second = faceUp[1];
+        if (board.partnerOf(first) == second && !board.isMatched(first)) {
+            updateMatches();
+            positiveScore();
+            board.setMatched(first, true);
+            board.setMatched(second, true);
+            board.setSeen(first, true);
+            board.setSeen(second, true);
+            flipBack(); // matched tiles stay up, this just starts the next turn
+            for (GameListener listener : listeners) listener.matchMade(first, second);
+            return TurnOutcome.MATCH;
+        }
+        boolean penalty = board.isSeen(first) || board.isSeen(second);
+        if (penalty) negativeScore();
+        board.setSeen(first, true);
+        board.setSeen(second, true);
+        return penalty ? TurnOutcome.PENALTY : TurnOutcome.MISS;
+    }
+
+    // Number of tiles flipped up during the current turn
+    public int getFaceUpCount() { return faceUpCount; }
+
+    // True once every pair on the board has been found
+    public boolean allMatched() { return matchesFound.get() == board.pairs(); }
+
+    public synchronized void restartGame() {
+        restartGame(6, ThreadLocalRandom.current().nextLong()); // Change the number of pairs as per your preference
+    }
+
+    // Restarts on a board dealt from the given seed, so scripted games restart the same way every time
+    public synchronized void restartGame(int pairs, long seed) {
+        if (suspended) return; // a suspended game only comes back through restoreSnapshot
+        if (GameMetrics.ENABLED) GameMetrics.RESTARTS.increment();
+        cancelTimer();
+        matchesFound.set(0);
+        flipsRemaining.set(2);
+        playerScore.set(0);
+        timeFinished = false;  // Restarts timeFinished flag
+        initializeTiles(pairs, seed);
+        for (GameListener listener : listeners) listener.scoreChanged(0);
+        startTimer(); // Starts timer for a new game
+    }
+
+    // Appends every deal, flip and end of this game to the journal, under the given session id
+    public synchronized void setJournal(MoveJournal journal, long sessionId) {
+        this.journal = journal;
+        this.sessionId = sessionId;
+    }
+
+    // Times are stored as nanoseconds since the countdown started, so a replay can run on a manual clock
+    private void record(int type, int tile, int outcome, long now) {
+        if (journal != null) journal.append(sessionId, type, tile, outcome, startNanos < 0 ? 0 : now - startNanos);
+    }
+
+    // Registers a listener for changes to this game
+    public synchronized void addGameListener(GameListener listener) {
+        GameListener[] updated = Arrays.copyOf(listeners, listeners.length + 1);
+        updated[listeners.length] = listener;
+        listeners = updated;
+        if (listener.wantsTicks() && tickListeners++ == 0 && isCounting() && tickTimer == null) {
+            scheduleTick(timerGeneration, getSeconds() + 1);
+        }
+    }
+
+    public synchronized void removeGameListener(GameListener listener) {
+        for (int i = 0; i < listeners.length; i++) {
+            if (listeners[i] == listener) {
+                GameListener[] updated = new GameListener[listeners.length - 1];
+                System.arraycopy(listeners, 0, updated, 0, i);
+                System.arraycopy(listeners, i + 1, updated, i, updated.length - i);
+                listeners = updated;
+                if (listener.wantsTicks() && --tickListeners == 0 && tickTimer != null) {
+                    tickTimer.cancel();
+                    tickTimer = null;
+                }
+                return;
+            }
+        }
+    }
+
+    // Records the start and deadline and schedules a single expiry event for the deadline
+    public synchronized void startTimer() {
+        // ensure any existing timer is canceled first
+        cancelTimer();
+        startCountdown(0);
+        record(MoveJournal.START, 0, 0, startNanos);
+        if (GameMetrics.ENABLED) GameMetrics.gameStarted(board.pairs(), seed);
+    }
+
+    // Starts the countdown as if the given time had already passed, so a restored game carries on where it was
+    private void startCountdown(long elapsedNanos) {
+        long now = clock.nanoTime();
+        startNanos = now - elapsedNanos;
+        deadlineNanos = startNanos + TimeUnit.SECONDS.toNanos(gameDuration);
+        stopNanos = -1;
+        int generation = ++timerGeneration;
+        timer = wheel.schedule(() -> expire(generation), Math.max(deadlineNanos - now, 0), TimeUnit.NANOSECONDS);
+        if (tickListeners > 0) scheduleTick(generation, getSeconds() + 1);
+    }
+
+    // Bytes needed to snapshot the game as it is now
+    public synchronized int snapshotSize() {
+        return GameSnapshot.HEADER_SIZE + board.byteSize() + faceUpCount * 4;
+    }
+
+    // Writes the board, flags, score, matches, flips, face up tiles and time into the buffer at its position,
+    // and moves the position past it. Nothing else is kept, so a suspended game only costs these bytes
+    public synchronized void writeSnapshot(ByteBuffer buffer) {
+        int size = snapshotSize();
+        if (buffer.remaining() < size) throw new IllegalArgumentException("Snapshot needs " + size + " bytes");
+        ByteBuffer out = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+        long elapsed = -1;
+        if (startNanos >= 0) {
+            long end = stopNanos >= 0 ? stopNanos : Math.min(clock.nanoTime(), deadlineNanos);
+            elapsed = end - startNanos;
+        }
+        out.putInt(GameSnapshot.MAGIC_OFFSET, GameSnapshot.MAGIC);
+        out.putInt(GameSnapshot.VERSION_OFFSET, GameSnapshot.VERSION);
+        out.putInt(GameSnapshot.TILES_OFFSET, board.size());
+        out.putInt(GameSnapshot.SCORE_OFFSET, playerScore.get());
+        out.putInt(GameSnapshot.MATCHES_OFFSET, matchesFound.get());
+        out.putInt(GameSnapshot.FLIPS_OFFSET, flipsRemaining.get());
+        out.putInt(GameSnapshot.FACE_UP_OFFSET, faceUpCount);
+        out.putInt(GameSnapshot.FLAGS_OFFSET,
+            (timeFinished ? GameSnapshot.TIME_FINISHED : 0) | (isCounting() ? GameSnapshot.COUNTING : 0));
+        out.putLong(GameSnapshot.SEED_OFFSET, seed);
+        out.putLong(GameSnapshot.ELAPSED_OFFSET, elapsed);
+        board.write(out, GameSnapshot.HEADER_SIZE);
+        int faceUpAt = GameSnapshot.HEADER_SIZE + board.byteSize();
+        for (int i = 0; i < faceUpCount; i++) out.putInt(faceUpAt + i * 4, faceUp[i]);
+        buffer.position(buffer.position() + size);
+    }
+
+    // Snapshot in a buffer of its own
+    public synchronized ByteBuffer snapshot() {
+        ByteBuffer buffer = ByteBuffer.allocate(snapshotSize());
+        writeSnapshot(buffer);
+        return buffer.flip();
+    }
+
+    // Takes the snapshot for suspending the game and stops it in the same step. From then on every flip is
+    // rejected and nothing changes the game, so no move can land after the snapshot and be lost
+    public synchronized ByteBuffer suspend() {
+        ByteBuffer snapshot = snapshot();
+        cancelTimer();
+        suspended = true;
+        return snapshot;
+    }
+
+    // Puts the game back in the state of a snapshot. A countdown that was running carries on from the
+    // time it had reached, so the time spent suspended does not count
+    public synchronized void restoreSnapshot(GameSnapshot snapshot) {
+        cancelTimer();
+        suspended = false;
+        board = snapshot.board();
+        seed = snapshot.getSeed();
+        playerScore.set(snapshot.getScore());
+        matchesFound.set(snapshot.getMatches());
+        flipsRemaining.set(snapshot.getFlips());
+        faceUpCount = snapshot.getFaceUpCount();
+        if (faceUp.length < faceUpCount) faceUp = new int[faceUpCount];
+        for (int i = 0; i < faceUpCount; i++) faceUp[i] = snapshot.getFaceUp(i);
+        timeFinished = snapshot.isTimeFinished();
+        long elapsed = snapshot.getElapsedNanos();
+        if (elapsed < 0) {
+            startNanos = -1;
+            stopNanos = -1;
+        } else if (snapshot.isCounting()) {
+            startCountdown(elapsed);
+        } else {
+            long now = clock.nanoTime(); // a stopped countdown stays frozen at the time it had reached
+            startNanos = now - elapsed;
+            deadlineNanos = startNanos + TimeUnit.SECONDS.toNanos(gameDuration);
+            stopNanos = now;
+        }
+        for (GameListener listener : listeners) listener.boardDealt();
+        for (GameListener listener : listeners) listener.scoreChanged(playerScore.get());
+    }
+
+    // Runs on the wheel thread when the deadline passes. Stale events from a cancelled countdown are ignored
+    private void expire(int generation) {
+        GameOverReason reason;
+        synchronized (this) {
+            if (generation != timerGeneration) return;
+            if (GameMetrics.ENABLED) GameMetrics.TIMER_EXPIRATIONS.increment();
+            reason = finish();
+        }
+        fireGameOver(reason);
+    }
+
+    // Schedules the tick event for a whole second of the game. Games no listener wants ticks from never tick
+    private void scheduleTick(int generation, int second) {
+        long delay = startNanos + TimeUnit.SECONDS.toNanos(second) - clock.nanoTime();
+        int number = ++tickNumber;
+        tickTimer = wheel.schedule(() -> tick(generation, number, second), Math.max(delay, 0), TimeUnit.NANOSECONDS);
+    }
+
+    // A tick already running when it was cancelled, or when a newer one was scheduled, must not start a second chain
+    private void tick(int generation, int number, int second) {
+        synchronized (this) {
+            if (generation != timerGeneration || number != tickNumber || tickTimer == null) return;
+            tickTimer = null;
+            if (second < gameDuration && tickListeners > 0) scheduleTick(generation, second + 1);
+        }
+        for (GameListener listener : listeners) listener.tick(second);
+    }
+
+    // Gets a specific tile from the tiles list
+    public Tile getTileFromTiles(int tileIndex) {
+        if (tileIndex < 0 || tileIndex >= board.size()) throw new IndexOutOfBoundsException("Tile " + tileIndex);
+        return new Tile(board, tileIndex);
+    }
+
+     // Ends the game by cancelling the timer. Listeners hear about it once, however many times this is called
+    public void endGame() {
+        GameOverReason reason;
+        synchronized (this) {
+            reason = finish();
+        }
+        fireGameOver(reason);
+    }
+
+    // Stops the game and works out why it ended, or returns null if it had already ended
+    private GameOverReason finish() {
+        long now = clock.nanoTime();
+        boolean pastDeadline = isFinishedAt(now);
+        cancelTimer();
+        if (timeFinished) return null;
+        timeFinished = true;
+        GameOverReason reason;
+        if (allMatched()) {
+            reason = GameOverReason.ALL_MATCHED;
+        } else {
+            reason = pastDeadline ? GameOverReason.TIME_UP : GameOverReason.ENDED;
+        }
+        record(MoveJournal.END, reason.ordinal(), 0, now);
+        if (GameMetrics.ENABLED) GameMetrics.gameEnded(reason, playerScore.get(), matchesFound.get(), getSeconds());
+        return reason;
+    }
+
+    // Called outside the lock so listeners can call back into the game
+    private void fireGameOver(GameOverReason reason) {
+        if (reason == null) return;
+        for (GameListener listener : listeners) listener.gameOver(reason);
+    }
+
+    // Also true once the deadline has passed, even if the expiry event has not run yet
+    public synchronized boolean timeIsFinished() {
+        return isFinishedAt(clock.nanoTime());
+    }
+
+    private boolean isFinishedAt(long now) {
+        return timeFinished || (isCounting() && now >= deadlineNanos);
+    }
+
+    // True while the countdown is started and has not been cancelled
+    private boolean isCounting() {
+        return startNanos >= 0 && stopNanos < 0;
+    }
+
+    // Method to cancel the timer
+    public synchronized void cancelTimer() {
+        timerGeneration++;
+        if (isCounting()) stopNanos = Math.min(clock.nanoTime(), deadlineNanos); // freezes getSeconds()
+        if (timer != null) {
+            timer.cancel();
+            timer = null;
+        }
+        if (tickTimer != null) {
+            tickTimer.cancel();
+            tickTimer = null;
+        }
+    }
+    // Method to get tiles from the model. The list is a read-only view of the board
+    public List<Tile> getTiles() { return tiles; }
+
+    // Method to get the board storage from the model
+    public Board getBoard() { return board; }
+
+    // Method to get the seed the board was dealt from, for replays
+    public long getSeed() { return seed; }
+
+    // The clock the game reads its time from
+    public GameClock getClock() { return clock; }
+
+    // The counters below are only changed by a turn, under the game's lock
+    private void updateMatches() { matchesFound.incrementAndGet(); }
+
+    private void updateFlips() { flipsRemaining.decrementAndGet(); }
+
+    // Adds a negative value to the score
+    private void negativeScore() {
+        int score = playerScore.addAndGet(-2);
+        for (GameListener listener : listeners) listener.scoreChanged(score);
+    }
+
+    // Adds a positive value to the score
+    private void positiveScore() {
+        int score = playerScore.addAndGet(10);
+        for (GameListener listener : listeners) listener.scoreChanged(score);
+    }
+
+    // Method to get the matches from the model
+    public int getMatches() { return matchesFound.get(); }
+
+    // Method to get the seconds elapsed from the model
+    public synchronized int getSeconds() {
+        if (startNanos < 0) return 0;
+        long end = stopNanos >= 0 ? stopNanos : Math.min(clock.nanoTime(), deadlineNanos);
+        return (int) TimeUnit.NANOSECONDS.toSeconds(end - startNanos);
+    }
+
+    // Method to get the current flips from the model
+    public int getFlips() { return flipsRemaining.get(); }
+
+    // Method to get the current score from the model
+    public int getScore() { return playerScore.get(); }
+
+    // Method to get the game duration from the model
+    public int getGameDuration() { return gameDuration; }
+}
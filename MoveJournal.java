@@ -0,0 +1,169 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Append-only journal of every move, kept for audits and disputes
+// Records have a fixed size and are written straight into memory-mapped segment files, so appending one
+// allocates nothing. When a segment is full the next one is mapped.
+// A record is 32 bytes: session id, wall clock millis, a value (the seed for DEAL, otherwise the game
+// time in nanoseconds since the countdown started), tile, type and outcome.
+// A record whose type is 0 has not been written yet, which is how readers find the end of a segment
+class MoveJournal {
+    static final int DEAL = 1;  // tile holds the number of pairs and value holds the seed
+    static final int START = 2; // the countdown started
+    static final int FLIP = 3;  // outcome holds the FlipResult
+    static final int RESET = 4; // the tiles of a missed turn were flipped back
+    static final int END = 5;   // tile holds the GameOverReason
+
+    static final int RECORD_SIZE = 32;
+    private static final int HEADER_SIZE = 32;
+    private static final int MAGIC = 0x4d4a4e4c; // "MJNL"
+    private static final int VERSION = 1;
+    private static final int DEFAULT_SEGMENT_RECORDS = 1 << 21; // 64 MB per segment
+
+    // Receives the records of a journal in the order they were written
+    interface Visitor {
+        void record(long sessionId, long wallMillis, int type, int tile, int outcome, long value);
+    }
+
+    private final Path directory;
+    private final int segmentRecords;
+    private final AtomicLong lastSessionId = new AtomicLong();
+    private MappedByteBuffer segment;
+    private int segmentIndex;
+    private int position; // Offset of the next record in the current segment
+
+    private MoveJournal(Path directory, int segmentRecords) {
+        this.directory = directory;
+        this.segmentRecords = segmentRecords;
+    }
+
+    public static MoveJournal open(Path directory) throws IOException {
+        return open(directory, DEFAULT_SEGMENT_RECORDS);
+    }
+
+    // Opens the journal in a directory and carries on after its last record.
+    // New session ids start after the highest one already in the journal
+    public static MoveJournal open(Path directory, int segmentRecords) throws IOException {
+        if (segmentRecords <= 0) throw new IllegalArgumentException("segmentRecords must be positive");
+        Files.createDirectories(directory);
+        MoveJournal journal = new MoveJournal(directory, segmentRecords);
+        List<Path> segments = segments(directory);
+        long[] lastSession = {0};
+        for (Path file : segments) {
+            scanSegment(file, (sessionId, wallMillis, type, tile, outcome, value) ->
+                lastSession[0] = Math.max(lastSession[0], sessionId));
+        }
+        journal.lastSessionId.set(lastSession[0]);
+        journal.map(segments.isEmpty() ? 0 : segmentIndex(segments.get(segments.size() - 1)));
+        return journal;
+    }
+
+    // Hands out a session id that is not used anywhere in this journal yet
+    public long newSessionId() { return lastSessionId.incrementAndGet(); }
+
+    // Appends one record. Games call this while holding their own lock, so it never calls back into a game
+    public synchronized void append(long sessionId, int type, int tile, int outcome, long value) {
+        if (segment == null) throw new IllegalStateException("Journal is closed");
+        if (position + RECORD_SIZE > segment.capacity()) {
+            try {
+                map(segmentIndex + 1);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not start a new journal segment", e);
+            }
+        }
+        MappedByteBuffer buffer = segment;
+        int at = position;
+        buffer.putLong(at, sessionId);
+        buffer.putLong(at + 8, System.currentTimeMillis());
+        buffer.putLong(at + 16, value);
+        buffer.putInt(at + 24, tile);
+        buffer.put(at + 29, (byte) outcome);
+        buffer.put(at + 28, (byte) type); // written last, so a reader never sees half a record
+        position = at + RECORD_SIZE;
+    }
+
+    // Writes the records appended so far to the disk
+    public synchronized void force() {
+        if (segment != null) segment.force();
+    }
+
+    public synchronized void close() {
+        force();
+        segment = null;
+    }
+
+    // Maps a segment file, creating it if needed, and finds the end of what was already written
+    // The channel can be closed straight away, the mapping stays valid until it is garbage collected
+    private void map(int index) throws IOException {
+        if (segment != null) segment.force();
+        Path file = directory.resolve(String.format("moves-%06d.journal", index));
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = Math.max(channel.size(), HEADER_SIZE + (long) segmentRecords * RECORD_SIZE);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            buffer.putInt(8, RECORD_SIZE);
+            segment = buffer;
+            segmentIndex = index;
+            position = end(buffer);
+        }
+    }
+
+    // Offset just after the last written record
+    private static int end(ByteBuffer buffer) {
+        int at = HEADER_SIZE;
+        while (at + RECORD_SIZE <= buffer.capacity() && buffer.get(at + 28) != 0) at += RECORD_SIZE;
+        return at;
+    }
+
+    // Reads every record of the journal in a directory, oldest first
+    public static void scan(Path directory, Visitor visitor) throws IOException {
+        for (Path file : segments(directory)) scanSegment(file, visitor);
+    }
+
+    private static void scanSegment(Path file, Visitor visitor) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("Not a move journal segment: " + file);
+        }
+        for (int at = HEADER_SIZE; at + RECORD_SIZE <= buffer.capacity(); at += RECORD_SIZE) {
+            int type = buffer.get(at + 28);
+            if (type == 0) break;
+            visitor.record(buffer.getLong(at), buffer.getLong(at + 8), type, buffer.getInt(at + 24),
+                buffer.get(at + 29), buffer.getLong(at + 16));
+        }
+    }
+
+    // The segment files of a journal in the order they were written
+    private static List<Path> segments(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) return new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().matches("moves-\\d{6}\\.journal"))
+                .sorted()
+                .collect(Collectors.toList());
+        }
+    }
+
+    private static int segmentIndex(Path file) {
+        String name = file.getFileName().toString();
+        return Integer.parseInt(name.substring(6, 12));
+    }
+}
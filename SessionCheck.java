@@ -0,0 +1,127 @@
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Checks a GameHost with 100k sessions running at once
+// On a host with a real timer wheel the JVM's thread count must not move while the sessions are created,
+// played, expired and evicted, and creating, expiring and evicting must cost about the same per session
+// however many there are. On a host with a manual wheel every game must be over at its deadline in virtual
+// time, every countdown must fire by the next tick of the wheel and nothing may be left waiting on it.
+// Exits with status 1 if a check fails.
+//
+// Run with:
+//   javac -d out *.java
+//   java -cp out SessionCheck [sessions]
+public class SessionCheck {
+    private final List<String> failures = new ArrayList<>();
+
+    public static void main(String[] args) {
+        int sessions = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        SessionCheck check = new SessionCheck();
+        check.realTime(sessions);
+        check.virtualTime(sessions);
+        if (!check.failures.isEmpty()) {
+            System.out.println("Failed: " + check.failures);
+            System.exit(1);
+        }
+        System.out.println("All session checks passed");
+    }
+
+    private void check(boolean ok, String what) {
+        if (!ok) failures.add(what);
+    }
+
+    private void realTime(int sessions) {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        GameHost host = new GameHost();
+        int before = threads.getThreadCount();
+        long[] ids = new long[sessions];
+
+        long start = System.nanoTime();
+        for (int i = 0; i < sessions; i++) ids[i] = host.createSession(6);
+        double create = perSession(start, sessions);
+        check(host.sessionCount() == sessions, "created " + host.sessionCount() + " of " + sessions + " sessions");
+        check(host.getWheel().waitingCount() == sessions, host.getWheel().waitingCount() + " countdowns waiting");
+        int created = threads.getThreadCount();
+
+        for (long id : ids) host.getSession(id).flip(0);
+        int played = threads.getThreadCount();
+
+        start = System.nanoTime();
+        for (int i = 0; i < sessions; i += 2) host.expireSession(ids[i]);
+        double expire = perSession(start, sessions / 2);
+        int expired = 0;
+        for (int i = 0; i < sessions; i++) {
+            if (host.getSession(ids[i]).timeIsFinished()) expired++;
+        }
+        check(expired == (sessions + 1) / 2, expired + " sessions over after expiring " + (sessions + 1) / 2);
+
+        start = System.nanoTime();
+        for (long id : ids) host.evictSession(id);
+        double evict = perSession(start, sessions);
+        check(host.sessionCount() == 0, host.sessionCount() + " sessions left after evicting them all");
+        check(host.getWheel().waitingCount() == 0, host.getWheel().waitingCount() + " countdowns still waiting");
+        int evicted = threads.getThreadCount();
+
+        System.out.printf("%d sessions: threads %d before, %d created, %d played, %d evicted%n",
+            sessions, before, created, played, evicted);
+        System.out.printf("per session: create %.0f ns, expire %.0f ns, evict %.0f ns%n", create, expire, evict);
+        check(created == before && played == before && evicted == before,
+            "thread count moved from " + before + " to " + created + ", " + played + ", " + evicted);
+
+        // A tenth of the sessions must not be much cheaper each than all of them
+        GameHost small = new GameHost();
+        start = System.nanoTime();
+        for (int i = 0; i < sessions / 10; i++) small.createSession(6);
+        double smallCreate = perSession(start, sessions / 10);
+        System.out.printf("per session with %d sessions: create %.0f ns%n", sessions / 10, smallCreate);
+        check(create < 10 * Math.max(smallCreate, 1000), "creating took " + create + " ns with " + sessions
+            + " sessions and " + smallCreate + " ns with " + sessions / 10);
+        small.shutdown();
+        host.shutdown();
+    }
+
+    private void virtualTime(int sessions) {
+        ManualClock clock = new ManualClock();
+        GameHost host = new GameHost(TimerWheel.manual(clock, 1, TimeUnit.SECONDS, 64));
+        AtomicInteger timeUp = new AtomicInteger();
+        GameListener counter = new GameListener() {
+            @Override
+            public void gameOver(MemoryGame.GameOverReason reason) {
+                if (reason == MemoryGame.GameOverReason.TIME_UP) timeUp.incrementAndGet();
+            }
+        };
+        long[] ids = new long[sessions];
+        for (int i = 0; i < sessions; i++) {
+            ids[i] = host.createSession(6);
+            host.getSession(ids[i]).addGameListener(counter);
+        }
+
+        clock.advance(MemoryGame.GAME_DURATION - 1, TimeUnit.SECONDS);
+        host.getWheel().advance();
+        check(timeUp.get() == 0, timeUp.get() + " games ran out of time a second early");
+        clock.advance(1, TimeUnit.SECONDS);
+        int finished = 0;
+        for (long id : ids) {
+            if (host.getSession(id).timeIsFinished()) finished++;
+        }
+        check(finished == sessions, finished + " of " + sessions + " games over at the deadline");
+        // The wheel fires a timeout on the first tick that ends after its deadline
+        clock.advance(1, TimeUnit.SECONDS);
+        host.getWheel().advance();
+        System.out.printf("virtual time: %d of %d games out of time one tick after the deadline, %d countdowns waiting%n",
+            timeUp.get(), sessions, host.getWheel().waitingCount());
+        check(timeUp.get() == sessions, timeUp.get() + " of " + sessions + " games heard the time was up");
+        check(host.getWheel().waitingCount() == 0, host.getWheel().waitingCount() + " countdowns still waiting");
+        check(host.sessionCount() == sessions, "expired sessions must stay on the host until they are evicted");
+        host.shutdown();
+        check(host.sessionCount() == 0, host.sessionCount() + " sessions left after shutdown");
+    }
+
+    private static double perSession(long startNanos, int sessions) {
+        return (double) (System.nanoTime() - startNanos) / sessions;
+    }
+}
@@ -0,0 +1,31 @@
+// Results of a simulation run
+class SimulationReport {
+    final Distribution scores = new Distribution(1);
+    final Distribution turns = new Distribution(1);
+    final LatencyHistogram nanos = new LatencyHistogram(); // wall time per game, small boards take well under 1 us
+    long penalties;
+    long unfinished; // games that hit the turn limit
+
+    void merge(SimulationReport other) {
+        scores.merge(other.scores);
+        turns.merge(other.turns);
+        nanos.merge(other.nanos);
+        penalties += other.penalties;
+        unfinished += other.unfinished;
+    }
+
+    public Distribution getScores() { return scores; }
+    public Distribution getTurns() { return turns; }
+    public LatencyHistogram.Summary getNanos() { return nanos.summary(); }
+    public long getPenalties() { return penalties; }
+    public long getUnfinished() { return unfinished; }
+
+    @Override
+    public String toString() {
+        return "games: " + scores.getCount() + " (" + unfinished + " unfinished)\n"
+            + "score: " + scores + "\n"
+            + "turns: " + turns + "\n"
+            + "time per game: " + nanos.summary() + "\n"
+            + "penalties per game: " + String.format("%.2f", scores.getCount() == 0 ? 0 : (double) penalties / scores.getCount());
+    }
+}
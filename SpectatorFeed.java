@@ -0,0 +1,209 @@
+import java.util.Arrays;
+import java.util.concurrent.locks.StampedLock;
+
+// Read-only feed of one game's board for spectators
+// The game writes every change into the feed as it happens: a tile turned up or down, a match or a new score.
+// Each change gets the next version number and goes into a ring of recent changes, so a spectator that
+// has seen version v asks for the changes after v and gets a few longs instead of the whole board.
+// A spectator that is new, too far behind or from before the last deal takes a full BoardView instead.
+// Readers never write to the feed. They read optimistically with a StampedLock, like a seqlock, and read
+// again if the game wrote meanwhile, so any number of spectators never make the player's turn wait.
+// The game's side costs the same with one spectator or thousands, and does not allocate
+class SpectatorFeed implements GameListener {
+    private static final int SCORE = -1; // Position of a score change
+    private static final int OPTIMISTIC_TRIES = 8; // After that a reader takes the read lock, briefly blocking the game
+
+    private final MemoryGame game;
+    private final StampedLock lock = new StampedLock();
+    private final long[] changes;
+    private final int mask;
+    // Written by the game, inside its lock, while holding the write lock
+    private int[] cells = new int[0];
+    private int score;
+    private long version;
+    private long dealtAt; // Changes from before this version belong to an older board
+
+    private SpectatorFeed(MemoryGame game, int capacity) {
+        this.game = game;
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity must be a power of two");
+        }
+        changes = new long[capacity];
+        mask = capacity - 1;
+    }
+
+    public static SpectatorFeed attach(MemoryGame game) {
+        return attach(game, 1024);
+    }
+
+    // Starts a feed of the game as it is now. capacity is how many changes a spectator can fall behind
+    // and still catch up without a full view
+    public static SpectatorFeed attach(MemoryGame game, int capacity) {
+        SpectatorFeed feed = new SpectatorFeed(game, capacity);
+        synchronized (game) { // No change can come between the first view and the first event
+            feed.deal(game.getBoard(), game.getScore());
+            game.addGameListener(feed);
+        }
+        return feed;
+    }
+
+    // Stops following the game. Spectators keep the views they have
+    public void detach() { game.removeGameListener(this); }
+
+    // Cells hold 0 for a face down tile, symbol + 1 for a face up one and -(symbol + 1) for a matched one
+    private static int faceUp(int symbol) { return symbol + 1; }
+
+    private static int matched(int symbol) { return -(symbol + 1); }
+
+    // A change is the position in the high half and the new cell, or the new score, in the low half
+    private static long change(int position, int value) {
+        return (long) position << 32 | value & 0xffffffffL;
+    }
+
+    public static int changedPosition(long change) { return (int) (change >> 32); }
+
+    public static int changedValue(long change) { return (int) change; }
+
+    public static boolean isScoreChange(long change) { return changedPosition(change) == SCORE; }
+
+    @Override
+    public void tileFlipped(int position, boolean faceUp) {
+        set(position, faceUp ? faceUp(game.getBoard().symbolAt(position)) : 0);
+    }
+
+    @Override
+    public void matchMade(int first, int second) {
+        Board board = game.getBoard();
+        long stamp = lock.writeLock();
+        try {
+            write(first, matched(board.symbolAt(first)));
+            write(second, matched(board.symbolAt(second)));
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public void scoreChanged(int score) {
+        long stamp = lock.writeLock();
+        try {
+            this.score = score;
+            changes[(int) (++version & mask)] = change(SCORE, score);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public void boardDealt() { deal(game.getBoard(), game.getScore()); }
+
+    private void set(int position, int cell) {
+        long stamp = lock.writeLock();
+        try {
+            write(position, cell);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private void write(int position, int cell) {
+        cells[position] = cell;
+        changes[(int) (++version & mask)] = change(position, cell);
+    }
+
+    // A new board replaces every cell. This is the only change that costs more than O(1)
+    private void deal(Board board, int score) {
+        int[] dealt = new int[board.size()];
+        for (int i = 0; i < dealt.length; i++) {
+            if (board.isMatched(i)) {
+                dealt[i] = matched(board.symbolAt(i));
+            } else if (board.isFlipped(i)) {
+                dealt[i] = faceUp(board.symbolAt(i));
+            }
+        }
+        long stamp = lock.writeLock();
+        try {
+            cells = dealt;
+            this.score = score;
+            dealtAt = ++version;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    // The newest version. A spectator that has it has seen everything
+    public long version() {
+        long stamp = lock.tryOptimisticRead();
+        long current = version;
+        if (lock.validate(stamp)) return current;
+        stamp = lock.readLock();
+        try {
+            return version;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // The whole board as it is now
+    public BoardView view() {
+        for (int i = 0; i < OPTIMISTIC_TRIES; i++) {
+            long stamp = lock.tryOptimisticRead();
+            int[] current = cells;
+            int[] copy = Arrays.copyOf(current, current.length);
+            int currentScore = score;
+            long currentVersion = version;
+            if (lock.validate(stamp)) return new BoardView(currentVersion, copy, currentScore);
+        }
+        long stamp = lock.readLock();
+        try {
+            return new BoardView(version, cells.clone(), score);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // Copies the changes made after version since into out, oldest first, and returns how many there were.
+    // The spectator is then at version since + the count. Returns -1 when the changes are gone or belong to
+    // an older board, and the spectator needs a new view(). out must hold at least the feed's capacity
+    public int changesSince(long since, long[] out) {
+        for (int i = 0; i < OPTIMISTIC_TRIES; i++) {
+            long stamp = lock.tryOptimisticRead();
+            int count = copyChanges(since, out);
+            if (lock.validate(stamp)) return count;
+        }
+        long stamp = lock.readLock();
+        try {
+            return copyChanges(since, out);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private int copyChanges(long since, long[] out) {
+        long current = version;
+        if (since < dealtAt || current - since > changes.length || current - since > out.length) return -1;
+        int count = (int) (current - since);
+        for (int i = 0; i < count; i++) out[i] = changes[(int) ((since + 1 + i) & mask)];
+        return count;
+    }
+
+    // The view brought up to date. Returns the same view when nothing changed.
+    // Makes a buffer for the changes when there are some, so a spectator that updates often should use
+    // update(previous, buffer) with a buffer of its own
+    public BoardView update(BoardView previous) {
+        if (version() == previous.getVersion()) return previous;
+        return update(previous, new long[changes.length]);
+    }
+
+    // The view brought up to date, reading the changes through the caller's buffer, which must hold at
+    // least capacity() longs. Only a new view is made, and only when something changed
+    public BoardView update(BoardView previous, long[] buffer) {
+        if (buffer.length < changes.length) throw new IllegalArgumentException("The buffer needs " + changes.length + " longs");
+        int count = changesSince(previous.getVersion(), buffer);
+        if (count == 0) return previous;
+        return count < 0 ? view() : previous.apply(buffer, count);
+    }
+
+    // How many changes a spectator can fall behind and still catch up without a full view
+    public int capacity() { return changes.length; }
+}
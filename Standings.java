@@ -0,0 +1,94 @@
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+// Standings of one tournament round, updated as each game ends
+// A Fenwick tree counts the results by score and time, so the place of any result is known in O(log n) at
+// any moment of the round, and a bounded heap keeps the leaders. Equal score and time share a place
+class Standings {
+    // Best first: highest score, then fastest, then the lowest participant number
+    static final Comparator<Result> BEST_FIRST = Comparator.comparingInt((Result result) -> -result.score)
+        .thenComparingInt(result -> result.seconds)
+        .thenComparingInt(result -> result.participant);
+
+    // How one participant's game ended
+    static final class Result {
+        final int participant;
+        final String entrant;
+        final int score;
+        final int seconds;
+        final MemoryGame.GameOverReason reason;
+
+        Result(int participant, String entrant, int score, int seconds, MemoryGame.GameOverReason reason) {
+            this.participant = participant;
+            this.entrant = entrant;
+            this.score = score;
+            this.seconds = seconds;
+            this.reason = reason;
+        }
+
+        @Override
+        public String toString() {
+            return "participant " + participant + " (" + entrant + "): " + score + " points in " + seconds
+                + " seconds, " + reason;
+        }
+    }
+
+    private final int minScore;
+    private final int maxScore;
+    private final int maxSeconds;
+    private final long[] tree;
+    private final long[] reasons = new long[MemoryGame.GameOverReason.values().length];
+    private final PriorityQueue<Result> best; // The worst of the best results is at the head
+    private final int topK;
+    private long count;
+
+    Standings(int pairs, int maxSeconds, int topK) {
+        this.minScore = -10 * pairs;
+        this.maxScore = 10 * pairs;
+        this.maxSeconds = maxSeconds;
+        this.tree = new long[(maxScore - minScore + 1) * (maxSeconds + 1) + 1];
+        this.best = new PriorityQueue<>(topK + 1, BEST_FIRST.reversed());
+        this.topK = topK;
+    }
+
+    // Adds a result and returns its place so far
+    public synchronized long add(Result result) {
+        for (int i = index(result.score, result.seconds); i < tree.length; i += i & -i) tree[i]++;
+        count++;
+        reasons[result.reason.ordinal()]++;
+        if (best.size() < topK) {
+            best.add(result);
+        } else if (BEST_FIRST.compare(result, best.peek()) < 0) {
+            best.poll();
+            best.add(result);
+        }
+        return place(result.score, result.seconds);
+    }
+
+    // Place this score and time has: 1 plus the number of results that were better
+    public synchronized long place(int score, int seconds) {
+        long atOrWorse = 0;
+        for (int i = index(score, seconds); i > 0; i -= i & -i) atOrWorse += tree[i];
+        return count - atOrWorse + 1;
+    }
+
+    public synchronized long count() { return count; }
+
+    public synchronized long count(MemoryGame.GameOverReason reason) { return reasons[reason.ordinal()]; }
+
+    // The leaders, best first
+    public synchronized List<Result> top() {
+        List<Result> top = new ArrayList<>(best);
+        top.sort(BEST_FIRST);
+        return top;
+    }
+
+    // Better results get higher indexes: by score, then by fewer seconds
+    private int index(int score, int seconds) {
+        int clampedScore = Math.max(minScore, Math.min(maxScore, score)) - minScore;
+        int clampedSeconds = Math.max(0, Math.min(maxSeconds, seconds));
+        return clampedScore * (maxSeconds + 1) + (maxSeconds - clampedSeconds) + 1;
+    }
+}
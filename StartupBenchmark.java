@@ -0,0 +1,86 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Startup benchmark for terminal play
+// Starts the game in a new JVM, picks the terminal, and measures the time until the first move prompt is
+// printed. The resident memory of the JVM is read from /proc at that point, then the game is quit.
+// Each run is a fresh JVM, so the numbers include JVM startup and class loading, which is what a player
+// waits for. Extra arguments go to the game's JVM, to compare for example with and without an AppCDS archive.
+// The game runs from this benchmark's class path, unless the arguments give a -jar or -cp of their own.
+//
+// Run with:
+//   javac -d out *.java
+//   java -cp out StartupBenchmark [runs] [JVM options for the game...]
+//   java -cp out StartupBenchmark 20 -XX:SharedArchiveFile=memorygame.jsa -jar memorygame.jar
+public class StartupBenchmark {
+    private static final byte[] PROMPT_END = "restart: ".getBytes(StandardCharsets.US_ASCII);
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int runs = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        List<String> jvmOptions = args.length > 1 ? Arrays.asList(args).subList(1, args.length) : List.of();
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        List<String> command = new ArrayList<>();
+        command.add(java);
+        command.addAll(jvmOptions);
+        if (!jvmOptions.contains("-jar") && !jvmOptions.contains("-cp")) {
+            command.add("-cp");
+            command.add(System.getProperty("java.class.path"));
+            command.add("Main");
+        }
+
+        run(command); // The first run warms up the disk cache
+        long[] millis = new long[runs];
+        long[] rssKb = new long[runs];
+        for (int i = 0; i < runs; i++) {
+            long[] result = run(command);
+            millis[i] = result[0];
+            rssKb[i] = result[1];
+        }
+        Arrays.sort(millis);
+        Arrays.sort(rssKb);
+        System.out.println(String.join(" ", command));
+        System.out.printf("time to first prompt: median %d ms, min %d ms, max %d ms%n",
+            millis[runs / 2], millis[0], millis[runs - 1]);
+        System.out.printf("resident memory at the prompt: median %.1f MB%n", rssKb[runs / 2] / 1024.0);
+    }
+
+    // Returns the milliseconds until the prompt and the resident kilobytes at that time
+    private static long[] run(List<String> command) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        OutputStream in = process.getOutputStream();
+        in.write("T\n".getBytes(StandardCharsets.US_ASCII));
+        in.flush();
+
+        InputStream out = process.getInputStream();
+        int matched = 0;
+        int b;
+        while (matched < PROMPT_END.length && (b = out.read()) >= 0) {
+            matched = b == PROMPT_END[matched] ? matched + 1 : b == PROMPT_END[0] ? 1 : 0;
+        }
+        if (matched < PROMPT_END.length) throw new IllegalStateException("The game ended before its prompt");
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        long rss = residentKb(process.pid());
+
+        in.write("q\n".getBytes(StandardCharsets.US_ASCII));
+        in.flush();
+        out.transferTo(OutputStream.nullOutputStream());
+        process.waitFor();
+        return new long[] {millis, rss};
+    }
+
+    private static long residentKb(long pid) throws IOException {
+        for (String line : Files.readAllLines(Paths.get("/proc", Long.toString(pid), "status"))) {
+            if (line.startsWith("VmRSS:")) return Long.parseLong(line.replaceAll("[^0-9]", ""));
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,101 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+
+// Event loop for terminal play
+// Lines typed by the players, the ends of their input and game overs from the timer wheel all go into one
+// queue, and one thread takes them out and runs them. A time-up ends the session as soon as the wheel fires,
+// instead of at the player's next Enter, and all the drawing happens on the loop thread.
+// One loop serves any number of sessions. Java can not wait for a terminal or a pipe without blocking a
+// thread, so a session opened on a reader gets a thread that only reads lines and queues them. Sessions
+// that get their lines some other way, like a pseudo-terminal multiplexer, hand them to input() instead
+class TerminalLoop {
+    private static final int OPEN = 0;
+    private static final int INPUT = 1;
+    private static final int GAME_OVER = 2;
+
+    private final LinkedBlockingQueue<Event> events = new LinkedBlockingQueue<>();
+    private final Map<GameController, Session> sessions = new ConcurrentHashMap<>();
+
+    private static final class Event {
+        final int type;
+        final GameController controller;
+        final String line; // null at the end of the input
+        final MemoryGame.GameOverReason reason;
+
+        Event(int type, GameController controller, String line, MemoryGame.GameOverReason reason) {
+            this.type = type;
+            this.controller = controller;
+            this.line = line;
+            this.reason = reason;
+        }
+    }
+
+    private static final class Session {
+        volatile boolean closed;
+    }
+
+    // Adds a session whose lines are passed to input(). Can be called from any thread
+    public void open(GameController controller) {
+        sessions.put(controller, new Session());
+        events.add(new Event(OPEN, controller, null, null));
+    }
+
+    // Adds a session that reads its lines from the reader
+    public void open(GameController controller, BufferedReader reader) {
+        open(controller);
+        Session session = sessions.get(controller);
+        Thread thread = new Thread(() -> {
+            String line;
+            do {
+                try {
+                    line = reader.readLine();
+                } catch (IOException e) {
+                    line = null; // A broken input ends the session like a closed one
+                }
+                input(controller, line);
+            } while (line != null && !session.closed);
+        }, "terminal-input");
+        thread.setDaemon(true); // A reader still waiting for a line must not keep the program running
+        thread.start();
+    }
+
+    // Queues a line from the player, or null when their input has ended. Can be called from any thread
+    public void input(GameController controller, String line) {
+        events.add(new Event(INPUT, controller, line, null));
+    }
+
+    // Queues the end of a session's game. Called by the game's listener, often on the timer wheel thread
+    void gameOver(GameController controller, MemoryGame.GameOverReason reason) {
+        events.add(new Event(GAME_OVER, controller, null, reason));
+    }
+
+    // Runs the events on this thread until every session's game is over
+    public void run() {
+        try {
+            while (!sessions.isEmpty()) handle(events.take());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void handle(Event event) {
+        GameController controller = event.controller;
+        if (event.type == OPEN) {
+            controller.begin(this);
+        } else if (event.type == INPUT) {
+            Session session = sessions.get(controller);
+            if (session != null) controller.command(event.line);
+        } else {
+            Session session = sessions.remove(controller);
+            if (session == null) return;
+            session.closed = true;
+            controller.gameOver(event.reason);
+        }
+    }
+
+    // Number of sessions whose game is not over yet
+    public int sessionCount() { return sessions.size(); }
+}
@@ -0,0 +1,25 @@
+// Method for the model
+// Defines the tile class to be used in the game
+// A tile is a read-only view of one position on the Board, so the views can keep
+// working with it while the board itself stays compact
+class Tile {
+    private final Board board;
+    private final int position;
+
+    public Tile(Board board, int position) {
+        this.board = board;
+        this.position = position;
+    }
+
+    // Symbols past 'Z' only make sense as ids, use getSymbolId() or getLabel() for those
+    public char getSymbol() { return (char) ('A' + board.symbolAt(position)); }
+    public int getSymbolId() { return board.symbolAt(position); }
+    // Text shown on the card: a letter for the first 26 symbols, then the symbol id
+    public String getLabel() { return Board.label(board.symbolAt(position)); }
+    public boolean isFlipped() { return board.isFlipped(position); }
+    // NEW: Getter for the seen status (Required for point system)
+    public boolean isSeen() { return board.isSeen(position); }
+    // NEW: Getter for matched status
+    public boolean isMatched() { return board.isMatched(position); }
+    public int getPosition() { return position; }
+}
@@ -0,0 +1,240 @@
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+// Hashed timing wheel used for every game countdown
+// One worker thread serves all the games scheduled on it, instead of one java.util.Timer thread per game
+class TimerWheel {
+    private static TimerWheel shared;
+
+    private final GameClock clock;
+    private final long tickNanos;
+    private final Bucket[] buckets;
+    private final int mask;
+    // Scheduling and cancelling can happen on any thread, so they are handed to the worker through queues
+    private final ConcurrentLinkedQueue<Timeout> pending = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<Timeout> cancelled = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final Thread worker;
+    private final long startNanos;
+    private long tick;
+    private volatile boolean running = true;
+
+    public TimerWheel(long tickDuration, TimeUnit unit, int wheelSize) {
+        this(GameClock.SYSTEM, tickDuration, unit, wheelSize, true);
+    }
+
+    private TimerWheel(GameClock clock, long tickDuration, TimeUnit unit, int wheelSize, boolean startWorker) {
+        if (tickDuration <= 0) throw new IllegalArgumentException("tickDuration must be positive");
+        if (wheelSize <= 0 || Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("wheelSize must be a power of two");
+        }
+        this.tickNanos = unit.toNanos(tickDuration);
+        this.buckets = new Bucket[wheelSize];
+        for (int i = 0; i < wheelSize; i++) buckets[i] = new Bucket();
+        this.mask = wheelSize - 1;
+        this.clock = clock;
+        this.startNanos = clock.nanoTime();
+        if (startWorker) {
+            this.worker = new Thread(this::run, "timer-wheel");
+            this.worker.setDaemon(true);
+            this.worker.start();
+        } else {
+            this.worker = null;
+        }
+    }
+
+    // A wheel with no worker thread. Nothing runs until advance() is called, which suits a ManualClock
+    public static TimerWheel manual(GameClock clock, long tickDuration, TimeUnit unit, int wheelSize) {
+        return new TimerWheel(clock, tickDuration, unit, wheelSize, false);
+    }
+
+    // The wheel used by games that are not created through a GameHost
+    public static synchronized TimerWheel shared() {
+        if (shared == null) shared = new TimerWheel(10, TimeUnit.MILLISECONDS, 512);
+        return shared;
+    }
+
+    // Runs the task once after the delay. Returns a handle that can cancel it in O(1)
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        if (!running) throw new IllegalStateException("Timer wheel has been stopped");
+        long deadline = clock.nanoTime() - startNanos + unit.toNanos(delay);
+        Timeout timeout = new Timeout(this, task, deadline);
+        waiting.incrementAndGet();
+        pending.add(timeout);
+        return timeout;
+    }
+
+    // Number of tasks that are scheduled and have not run or been cancelled yet
+    public int waitingCount() { return waiting.get(); }
+
+    public GameClock getClock() { return clock; }
+
+    // The worker thread, or null for a manual wheel
+    public Thread getWorkerThread() { return worker; }
+
+    // Stops the worker thread. Tasks still waiting never run
+    public void stop() {
+        running = false;
+        if (worker != null) worker.interrupt();
+    }
+
+    // Runs every tick whose time has come on the clock. Only for manual wheels
+    // Ticks with nothing to run are skipped, so moving the clock on by years costs no more than by a minute
+    public void advance() {
+        if (worker != null) throw new IllegalStateException("This wheel is driven by its own thread");
+        while (running && nanosUntilNextTick() <= 0) {
+            skipIdleTicks();
+            runTick();
+        }
+        // Tidies up between ticks too, so a clock that hardly moves does not pile up cancelled tasks
+        removeCancelled();
+        transferPending();
+    }
+
+    private void run() {
+        while (running) {
+            long sleepNanos = nanosUntilNextTick();
+            if (sleepNanos > 0) {
+                LockSupport.parkNanos(this, sleepNanos);
+                continue; // woken early or still early, check the clock again
+            }
+            runTick();
+        }
+    }
+
+    // When a whole turn of the wheel or more is due, moves straight to the first tick a timeout runs on,
+    // or to the last tick that is due if none runs before it. Finding the first one looks at every waiting
+    // timeout once, which is no more than turning the wheel once would
+    private void skipIdleTicks() {
+        removeCancelled();
+        transferPending();
+        long lastDue = (clock.nanoTime() - startNanos) / tickNanos - 1;
+        if (lastDue - tick < buckets.length) return;
+        long next = lastDue;
+        for (Bucket bucket : buckets) {
+            for (Timeout timeout = bucket.head; timeout != null; timeout = timeout.next) {
+                next = Math.min(next, timeout.runTick);
+            }
+        }
+        tick = Math.max(tick, next);
+    }
+
+    private long nanosUntilNextTick() {
+        return tickNanos * (tick + 1) - (clock.nanoTime() - startNanos);
+    }
+
+    private void runTick() {
+        removeCancelled();
+        transferPending();
+        buckets[(int) (tick & mask)].expire(tick);
+        tick++;
+    }
+
+    // Moves newly scheduled tasks into their bucket
+    private void transferPending() {
+        Timeout timeout;
+        while ((timeout = pending.poll()) != null) {
+            if (timeout.state.get() != Timeout.WAITING) continue;
+            timeout.runTick = Math.max(timeout.deadline / tickNanos, tick); // never schedule into the past
+            buckets[(int) (timeout.runTick & mask)].add(timeout);
+        }
+    }
+
+    private void removeCancelled() {
+        Timeout timeout;
+        while ((timeout = cancelled.poll()) != null) {
+            if (timeout.bucket != null) timeout.bucket.remove(timeout);
+        }
+    }
+
+    // A task waiting in the wheel
+    static final class Timeout {
+        private static final int WAITING = 0;
+        private static final int CANCELLED = 1;
+        private static final int EXPIRED = 2;
+
+        private final TimerWheel wheel;
+        private final Runnable task;
+        private final long deadline;
+        private final AtomicInteger state = new AtomicInteger(WAITING);
+        private long runTick; // The tick it runs on, the wheel passes its slot once a turn until then
+        // Links for the bucket's list, only touched by the worker thread
+        private Timeout next;
+        private Timeout prev;
+        private Bucket bucket;
+
+        private Timeout(TimerWheel wheel, Runnable task, long deadline) {
+            this.wheel = wheel;
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        // Cancels the task if it has not run yet
+        public boolean cancel() {
+            if (!state.compareAndSet(WAITING, CANCELLED)) return false;
+            wheel.waiting.decrementAndGet();
+            wheel.cancelled.add(this);
+            return true;
+        }
+
+        public boolean isCancelled() { return state.get() == CANCELLED; }
+        public boolean isExpired() { return state.get() == EXPIRED; }
+
+        private void expire() {
+            if (!state.compareAndSet(WAITING, EXPIRED)) return;
+            wheel.waiting.decrementAndGet();
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                // One bad task must not stop the countdowns of every other game
+                if (GameMetrics.ENABLED) GameMetrics.TIMER_TASK_FAILURES.increment();
+                System.err.println("A timer task failed: " + e);
+            }
+        }
+    }
+
+    // Doubly linked list of the timeouts that hash to one slot of the wheel
+    private static final class Bucket {
+        private Timeout head;
+        private Timeout tail;
+
+        void add(Timeout timeout) {
+            timeout.bucket = this;
+            if (head == null) {
+                head = tail = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.prev = tail;
+                tail = timeout;
+            }
+        }
+
+        void remove(Timeout timeout) {
+            Timeout next = timeout.next;
+            if (timeout.prev != null) timeout.prev.next = next;
+            if (next != null) next.prev = timeout.prev;
+            if (timeout == head) head = next;
+            if (timeout == tail) tail = timeout.prev;
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.bucket = null;
+        }
+
+        // Runs every timeout in this slot whose tick has come
+        void expire(long tick) {
+            Timeout timeout = head;
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                if (timeout.runTick <= tick) {
+                    remove(timeout);
+                    timeout.expire();
+                } else if (timeout.isCancelled()) {
+                    remove(timeout);
+                }
+                timeout = next;
+            }
+        }
+    }
+}
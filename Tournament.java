@@ -0,0 +1,198 @@
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Runs tournament rounds: every participant of a round plays the same board, dealt from the round's seed,
+// at the same time, and they are ranked by score and then by time.
+// Participants are bots from the entrant strategies, taken in turn. Each one is a small task that plays a
+// few turns and then goes to the back of the pool's queue, so a round of 100k games shares a handful of
+// threads and every game keeps moving. One timeout on the wheel ends the round: after it no game plays
+// another turn. Results go into the round's Standings as each game ends.
+// Closing the tournament shuts down the pool if the tournament made it
+class Tournament implements AutoCloseable {
+    private static final int TURNS_PER_SLICE = 64;
+    // How long past the deadline a round waits for its games to report before it gives up on them
+    private static final long GRACE_SECONDS = 10;
+
+    private final int pairs;
+    private final long seed;
+    private final List<BotStrategy> entrants;
+    private final TimerWheel wheel;
+    private final ForkJoinPool pool;
+    private final boolean ownsPool;
+
+    public Tournament(int pairs, long seed, List<BotStrategy> entrants) {
+        // FIFO, so a game that gives up its thread waits behind every other game
+        this(pairs, seed, entrants, TimerWheel.shared(),
+            new ForkJoinPool(Runtime.getRuntime().availableProcessors(), ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true),
+            true);
+    }
+
+    // Plays on the caller's pool, which the caller shuts down
+    public Tournament(int pairs, long seed, List<BotStrategy> entrants, TimerWheel wheel, ForkJoinPool pool) {
+        this(pairs, seed, entrants, wheel, pool, false);
+    }
+
+    private Tournament(int pairs, long seed, List<BotStrategy> entrants, TimerWheel wheel, ForkJoinPool pool, boolean ownsPool) {
+        if (entrants.isEmpty()) throw new IllegalArgumentException("A tournament needs at least one entrant");
+        this.pairs = pairs;
+        this.seed = seed;
+        this.entrants = entrants;
+        this.wheel = wheel;
+        this.pool = pool;
+        this.ownsPool = ownsPool;
+    }
+
+    // Seed of the board every participant of a round plays
+    public long roundSeed(int round) {
+        return new SplittableRandom(seed + round * 0x9E3779B97F4A7C15L).nextLong();
+    }
+
+    // Plays a round and waits until every game in it is over or the deadline has passed.
+    // Games that have not reported a little while after the deadline are left out of the round and counted as missing
+    public Round playRound(int number, int participants, long deadline, TimeUnit unit) throws InterruptedException {
+        Round round = new Round(number, roundSeed(number), participants);
+        TimerWheel.Timeout timeout = wheel.schedule(() -> round.deadlinePassed = true, deadline, unit);
+        for (int i = 0; i < participants; i++) pool.execute(new Participant(round, i));
+        if (!round.done.await(unit.toNanos(deadline) + TimeUnit.SECONDS.toNanos(GRACE_SECONDS), TimeUnit.NANOSECONDS)) {
+            round.deadlinePassed = true;
+            round.missing = round.done.getCount();
+        }
+        timeout.cancel();
+        round.millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - round.startNanos);
+        return round;
+    }
+
+    // Shuts down the pool if this tournament made it. A pool passed in is left to the caller
+    @Override
+    public void close() {
+        if (ownsPool) pool.shutdown();
+    }
+
+    // One round, with its standings filled in as the games end
+    final class Round {
+        final int number;
+        final long seed;
+        final Standings standings;
+        final CountDownLatch done;
+        final long startNanos = System.nanoTime();
+        volatile boolean deadlinePassed;
+        long millis;
+        long missing; // Games that never reported a result
+        final AtomicInteger failed = new AtomicInteger(); // Games dropped because they threw
+        // Participants still waiting for a thread when the deadline passed. They are not ranked: 0 points in
+        // 0 seconds would place them above every game that was played and lost points
+        final AtomicInteger neverStarted = new AtomicInteger();
+
+        Round(int number, long seed, int participants) {
+            this.number = number;
+            this.seed = seed;
+            this.standings = new Standings(pairs, MemoryGame.GAME_DURATION, 10);
+            this.done = new CountDownLatch(participants);
+        }
+
+        public Standings getStandings() { return standings; }
+
+        public long getMissing() { return missing; }
+
+        public int getNeverStarted() { return neverStarted.get(); }
+
+        @Override
+        public String toString() {
+            StringBuilder text = new StringBuilder("Round " + number + " (seed " + seed + "): "
+                + standings.count() + " games in " + millis + " ms, " + standings.count(MemoryGame.GameOverReason.ALL_MATCHED)
+                + " all matched, " + standings.count(MemoryGame.GameOverReason.TIME_UP) + " out of time, "
+                + standings.count(MemoryGame.GameOverReason.ENDED) + " stopped at the deadline"
+                + (neverStarted.get() > 0 ? ", " + neverStarted.get() + " never started" : "")
+                + (failed.get() > 0 ? ", " + failed.get() + " failed" : "")
+                + (missing > 0 ? ", " + missing + " never finished" : ""));
+            for (Standings.Result result : standings.top()) {
+                text.append("\n  #").append(standings.place(result.score, result.seconds)).append(' ').append(result);
+            }
+            return text.toString();
+        }
+    }
+
+    // One player of a round. Its game is made when it first runs, so only games being played use memory
+    private final class Participant implements Runnable {
+        private final Round round;
+        private final int id;
+        private MemoryGame game;
+        private Bot bot;
+
+        Participant(Round round, int id) {
+            this.round = round;
+            this.id = id;
+        }
+
+        // A game that throws is dropped from the round, so the round still ends
+        @Override
+        public void run() {
+            try {
+                play();
+            } catch (RuntimeException e) {
+                System.err.println("A tournament game failed: " + e);
+                round.failed.incrementAndGet();
+                game = null;
+                bot = null;
+                round.done.countDown();
+            }
+        }
+
+        private void play() {
+            if (game == null) {
+                if (round.deadlinePassed) {
+                    // Never got to play. Nothing is dealt, so a round that is over empties its queue quickly
+                    round.neverStarted.incrementAndGet();
+                    round.done.countDown();
+                    return;
+                }
+                game = new MemoryGame(wheel);
+                game.initializeTiles(pairs, round.seed);
+                game.startTimer();
+                bot = entrant().newBot(new SplittableRandom(round.seed ^ id));
+                bot.start(game.getBoard().size());
+            }
+            for (int turn = 0; turn < TURNS_PER_SLICE; turn++) {
+                if (round.deadlinePassed || game.timeIsFinished() || game.allMatched()) {
+                    finish();
+                    return;
+                }
+                playTurn();
+            }
+            pool.execute(this); // Lets the other games have a turn
+        }
+
+        private void playTurn() {
+            Board board = game.getBoard();
+            int first = bot.firstFlip();
+            if (game.flip(first) == MemoryGame.FlipResult.REJECTED) return; // The time ran out
+            bot.revealed(first, board.symbolAt(first));
+            int second = bot.secondFlip(first);
+            MemoryGame.FlipResult result = game.flip(second);
+            if (result == MemoryGame.FlipResult.REJECTED) return;
+            bot.revealed(second, board.symbolAt(second));
+            if (result == MemoryGame.FlipResult.MATCH) {
+                bot.matched(first, second, board.symbolAt(first));
+            } else {
+                game.resetFlippedTiles();
+            }
+        }
+
+        private BotStrategy entrant() { return entrants.get(id % entrants.size()); }
+
+        private void finish() {
+            boolean timeUp = game.timeIsFinished();
+            game.endGame();
+            MemoryGame.GameOverReason reason = game.allMatched() ? MemoryGame.GameOverReason.ALL_MATCHED
+                : timeUp ? MemoryGame.GameOverReason.TIME_UP : MemoryGame.GameOverReason.ENDED;
+            round.standings.add(new Standings.Result(id, entrant().name(), game.getScore(), game.getSeconds(), reason));
+            game = null;
+            bot = null;
+            round.done.countDown();
+        }
+    }
+}
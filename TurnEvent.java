@@ -0,0 +1,20 @@
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+@Name("memorygame.Turn")
+@Label("Turn")
+@Category("Memory Game")
+class TurnEvent extends Event {
+    @Label("Position")
+    int position;
+
+    @Label("Outcome")
+    String outcome;
+
+    @Label("Turn Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long turnTime;
+}